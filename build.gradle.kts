@@ -0,0 +1,48 @@
+plugins {
+  java
+  id("me.champeau.jmh") version "0.7.3"
+}
+
+group = "ua.kpi.comsys"
+version = "1.0"
+
+repositories {
+  mavenCentral()
+}
+
+java {
+  toolchain {
+    languageVersion = JavaLanguageVersion.of(17)
+  }
+}
+
+dependencies {
+  testImplementation("junit:junit:4.13.2")
+}
+
+tasks.withType<JavaCompile>().configureEach {
+  options.encoding = "UTF-8"
+}
+
+tasks.test {
+  useJUnit()
+  // FileListTest reads fixtures relative to project directory
+  workingDir = projectDir
+  // Scaling suite size: gradle test -Pscaling.maxDigits=10000000
+  (findProperty("scaling.maxDigits") as String?)?.let { systemProperty("numberlist.scaling.maxDigits", it) }
+}
+
+// Benchmarks live in src/jmh/java, run with: gradle jmh
+// Single benchmark / size: gradle jmh -Pjmh.includes=ConversionBenchmark -Pjmh.digits=100000
+jmh {
+  jmhVersion = "1.37"
+  profilers = listOf("gc")
+  warmupIterations = 3
+  iterations = 5
+  fork = 1
+  resultFormat = "JSON"
+  (findProperty("jmh.includes") as String?)?.let { includes = listOf(it) }
+  (findProperty("jmh.digits") as String?)?.let { benchmarkParameters.put("digits", listProperty(it)) }
+}
+
+fun listProperty(value: String) = objects.listProperty<String>().value(value.split(","))
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Random;
+
+/**
+ * Deterministic inputs for benchmarks.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns decimal number with exactly given amount of digits (no leading zero).
+     */
+    static String decimal(int digits, long seed) {
+        Random rnd = new Random(seed);
+        char[] chars = new char[digits];
+        chars[0] = (char) ('1' + rnd.nextInt(9));
+        for (int i = 1; i < digits; i++) {
+            chars[i] = (char) ('0' + rnd.nextInt(10));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns list with given amount of random digits, built without radix conversion.
+     */
+    static NumberListImpl digits(int count, long seed) {
+        Random rnd = new Random(seed);
+        NumberListImpl list = new NumberListImpl();
+        int base = NumberListImpl.defaultBase();
+        for (int i = 0; i < count; i++) {
+            list.add((byte) rnd.nextInt(base));
+        }
+        return list;
+    }
+}
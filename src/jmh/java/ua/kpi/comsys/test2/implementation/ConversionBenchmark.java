@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Radix conversions: construction from decimal string / file, changeScale,
+ * additionalOperation, toDecimalString and saveList.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    // Decimal digits of operands
+    @Param({"10", "1000", "100000", "10000000"})
+    public int digits;
+
+    private String decimal;
+    private File in;
+    private File out;
+    private NumberListImpl list;
+    private NumberListImpl other;
+
+    @Setup
+    public void setUp() throws IOException {
+        decimal = BenchmarkData.decimal(digits, 1);
+        list = new NumberListImpl(decimal);
+        other = new NumberListImpl(BenchmarkData.decimal(Math.max(1, digits / 2), 2));
+        in = File.createTempFile("bench-in", ".txt");
+        out = File.createTempFile("bench-out", ".txt");
+        list.saveList(in);
+    }
+
+    @TearDown
+    public void tearDown() {
+        in.delete();
+        out.delete();
+    }
+
+    @Benchmark
+    public NumberListImpl fromString() {
+        return new NumberListImpl(decimal);
+    }
+
+    @Benchmark
+    public NumberListImpl fromFile() {
+        return new NumberListImpl(in);
+    }
+
+    @Benchmark
+    public NumberListImpl changeScale() {
+        return list.changeScale();
+    }
+
+    @Benchmark
+    public NumberListImpl additionalOperation() {
+        return list.additionalOperation(other);
+    }
+
+    @Benchmark
+    public String toDecimalString() {
+        return list.toDecimalString();
+    }
+
+    @Benchmark
+    public File saveList() {
+        list.saveList(out);
+        return out;
+    }
+}
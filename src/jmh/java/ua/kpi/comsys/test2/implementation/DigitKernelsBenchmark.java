@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scalar vs SWAR digit kernels on arrays of digits of the record book base:
+ * decimal validation, histogram of counting sort, search of an absent digit
+ * and bitwise OR of aligned digits.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DigitKernelsBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int digits;
+
+    @Param({"scalar", "swar"})
+    public String kernel;
+
+    private DigitKernels k;
+    private byte[] a;
+    private byte[] b;
+    private byte[] dst;
+    private long[] cnt;
+    private int base;
+
+    @Setup
+    public void setUp() {
+        k = DigitKernels.select(kernel);
+        base = NumberListImpl.defaultBase();
+        Random rnd = new Random(5);
+        a = new byte[digits];
+        b = new byte[digits];
+        dst = new byte[digits];
+        for (int i = 0; i < digits; i++) {
+            a[i] = (byte) rnd.nextInt(base);
+            b[i] = (byte) rnd.nextInt(base);
+        }
+        cnt = new long[base];
+    }
+
+    @Benchmark
+    public int validate() {
+        return k.firstInvalid(a, 0, digits, 10);
+    }
+
+    @Benchmark
+    public long[] count() {
+        cnt[0] = 0;
+        k.count(a, 0, digits, cnt);
+        return cnt;
+    }
+
+    @Benchmark
+    public int indexOfAbsent() {
+        return k.indexOf(a, 0, digits, (byte) base);
+    }
+
+    @Benchmark
+    public byte[] or() {
+        k.bitwise(a, 0, b, 0, dst, 0, digits, false);
+        return dst;
+    }
+}
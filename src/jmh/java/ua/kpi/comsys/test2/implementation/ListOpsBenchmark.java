@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * List operations on digits: get / set at random indices, sorts, cyclic shifts
+ * and iteration. Lists are built digit by digit, no radix conversion involved.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ListOpsBenchmark {
+
+    private static final int INDICES = 1024;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int digits;
+
+    private NumberListImpl list;
+    private int[] indices;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        list = BenchmarkData.digits(digits, 3);
+        Random rnd = new Random(4);
+        indices = new int[INDICES];
+        for (int i = 0; i < INDICES; i++) {
+            indices[i] = rnd.nextInt(digits);
+        }
+    }
+
+    private int nextIndex() {
+        int i = indices[next];
+        next = (next + 1) & (INDICES - 1);
+        return i;
+    }
+
+    @Benchmark
+    public Byte getRandom() {
+        return list.get(nextIndex());
+    }
+
+    @Benchmark
+    public Byte setRandom() {
+        return list.set(nextIndex(), (byte) 1);
+    }
+
+    @Benchmark
+    public void sortAscending() {
+        list.sortAscending();
+    }
+
+    @Benchmark
+    public void sortDescending() {
+        list.sortDescending();
+    }
+
+    @Benchmark
+    public void shiftLeft() {
+        list.shiftLeft();
+    }
+
+    @Benchmark
+    public void shiftRight() {
+        list.shiftRight();
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Byte d : list) {
+            sum += d;
+        }
+        return sum;
+    }
+}
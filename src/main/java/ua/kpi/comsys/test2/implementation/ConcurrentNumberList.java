@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Thread-safe NumberList backed by NumberListImpl and guarded by StampedLock.
+ *
+ * size(), isEmpty() and get(int) use optimistic reads and fall back to the
+ * read lock only if a writer interfered. Other read operations take the read
+ * lock, all mutators (including swap, sorts and shifts) take the write lock.
+ * Iterators work over a snapshot taken under the read lock and never throw
+ * ConcurrentModificationException; they do not support modification.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public class ConcurrentNumberList implements NumberList {
+
+    private final NumberListImpl list;
+    private final StampedLock lock = new StampedLock();
+
+    //  Constructors
+
+    /**
+     * Creates empty list.
+     */
+    public ConcurrentNumberList() {
+        this.list = new NumberListImpl();
+    }
+
+    /**
+     * Creates list by decimal number in string notation (same rules as NumberListImpl).
+     */
+    public ConcurrentNumberList(String value) {
+        this.list = new NumberListImpl(value);
+    }
+
+    /**
+     * Creates list by decimal number from file (same rules as NumberListImpl).
+     */
+    public ConcurrentNumberList(File file) {
+        this.list = new NumberListImpl(file);
+    }
+
+    /**
+     * Creates list holding a copy of given list. Later changes of the source
+     * are not visible through this list.
+     */
+    public ConcurrentNumberList(NumberListImpl source) {
+        if (source == null) throw new NullPointerException();
+        this.list = source.copy();
+    }
+
+    //  Snapshots
+
+    /**
+     * Returns consistent copy of current contents.
+     */
+    public NumberListImpl snapshot() {
+        long stamp = lock.readLock();
+        try {
+            return list.copy();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Unwraps other concurrent lists to plain snapshots, so we never hold
+    // two StampedLocks at once (StampedLock is not reentrant)
+    private static NumberList unwrap(NumberList arg) {
+        if (arg instanceof ConcurrentNumberList) {
+            return ((ConcurrentNumberList) arg).snapshot();
+        }
+        return arg;
+    }
+
+    // Copies collection argument before locking: it may be this list itself
+    private static Object[] detach(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        if (c instanceof ConcurrentNumberList) {
+            return ((ConcurrentNumberList) c).snapshot().toArray();
+        }
+        return c.toArray();
+    }
+
+    //  NumberListImpl extras
+
+    /**
+     * See {@link NumberListImpl#toDecimalString()}.
+     */
+    public String toDecimalString() {
+        long stamp = lock.readLock();
+        try {
+            return list.toDecimalString();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * See {@link NumberListImpl#changeScale()}.
+     */
+    public NumberListImpl changeScale() {
+        long stamp = lock.readLock();
+        try {
+            return list.changeScale();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * See {@link NumberListImpl#changeScale(int)}.
+     */
+    public NumberListImpl changeScale(int targetBase) {
+        long stamp = lock.readLock();
+        try {
+            return list.changeScale(targetBase);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * See {@link NumberListImpl#additionalOperation(NumberList)}.
+     */
+    public NumberListImpl additionalOperation(NumberList arg) {
+        NumberList other = unwrap(arg);
+        long stamp = lock.readLock();
+        try {
+            return list.additionalOperation(other);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * See {@link NumberListImpl#saveList(File)}. File is written outside the lock.
+     */
+    public void saveList(File file) {
+        snapshot().saveList(file);
+    }
+
+    /**
+     * See {@link NumberListImpl#writeDigits(Appendable)}. Holds read lock while writing.
+     */
+    public void writeDigits(Appendable out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            list.writeDigits(out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * See {@link NumberListImpl#writeDigits(WritableByteChannel)}. Holds read lock while writing.
+     */
+    public void writeDigits(WritableByteChannel out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            list.writeDigits(out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //  Object methods
+
+    @Override
+    public String toString() {
+        long stamp = lock.readLock();
+        try {
+            return list.toString();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        Object other = (o instanceof ConcurrentNumberList) ? ((ConcurrentNumberList) o).snapshot() : o;
+        long stamp = lock.readLock();
+        try {
+            return list.equals(other);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        long stamp = lock.readLock();
+        try {
+            return list.hashCode();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //  Optimistic reads
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int s = list.size();
+        if (lock.validate(stamp)) return s;
+
+        stamp = lock.readLock();
+        try {
+            return list.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Byte get(int index) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                Byte v = list.get(index);
+                if (lock.validate(stamp)) return v;
+            } catch (RuntimeException ex) {
+                // Writer changed links under us (or index is bad): retry under lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return list.get(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //  Read-locked queries
+
+    @Override
+    public boolean contains(Object o) {
+        long stamp = lock.readLock();
+        try {
+            return list.contains(o);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        Object[] items = detach(c);
+        long stamp = lock.readLock();
+        try {
+            for (Object x : items) {
+                if (!list.contains(x)) return false;
+            }
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        long stamp = lock.readLock();
+        try {
+            return list.indexOf(o);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        long stamp = lock.readLock();
+        try {
+            return list.lastIndexOf(o);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        long stamp = lock.readLock();
+        try {
+            return list.toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return list.toArray(a);
+    }
+
+    @Override
+    public List<Byte> subList(int fromIndex, int toIndex) {
+        long stamp = lock.readLock();
+        try {
+            return list.subList(fromIndex, toIndex);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Iterator<Byte> iterator() {
+        return new SnapshotItr(toArray(), 0);
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator() {
+        return new SnapshotItr(toArray(), 0);
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator(int index) {
+        Object[] snap = toArray();
+        if (index < 0 || index > snap.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + snap.length);
+        }
+        return new SnapshotItr(snap, index);
+    }
+
+    //  Write-locked mutators
+
+    @Override
+    public boolean add(Byte e) {
+        long stamp = lock.writeLock();
+        try {
+            return list.add(e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void add(int index, Byte element) {
+        long stamp = lock.writeLock();
+        try {
+            list.add(index, element);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Byte set(int index, Byte element) {
+        long stamp = lock.writeLock();
+        try {
+            return list.set(index, element);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        long stamp = lock.writeLock();
+        try {
+            return list.remove(o);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Byte remove(int index) {
+        long stamp = lock.writeLock();
+        try {
+            return list.remove(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Byte> c) {
+        Object[] items = detach(c);
+        long stamp = lock.writeLock();
+        try {
+            for (Object x : items) {
+                list.add((Byte) x);
+            }
+            return items.length > 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Byte> c) {
+        Object[] items = detach(c);
+        long stamp = lock.writeLock();
+        try {
+            if (index < 0 || index > list.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + list.size());
+            }
+            int i = index;
+            for (Object x : items) {
+                list.add(i++, (Byte) x);
+            }
+            return items.length > 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Object[] items = detach(c);
+        long stamp = lock.writeLock();
+        try {
+            return list.removeAll(Arrays.asList(items));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Object[] items = detach(c);
+        long stamp = lock.writeLock();
+        try {
+            return list.retainAll(Arrays.asList(items));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            list.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //  NumberList extra methods
+
+    @Override
+    public boolean swap(int index1, int index2) {
+        long stamp = lock.writeLock();
+        try {
+            return list.swap(index1, index2);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void sortAscending() {
+        long stamp = lock.writeLock();
+        try {
+            list.sortAscending();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void sortDescending() {
+        long stamp = lock.writeLock();
+        try {
+            list.sortDescending();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void shiftLeft() {
+        long stamp = lock.writeLock();
+        try {
+            list.shiftLeft();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void shiftRight() {
+        long stamp = lock.writeLock();
+        try {
+            list.shiftRight();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //  Snapshot iterator
+
+    private static final class SnapshotItr implements ListIterator<Byte> {
+        private final Object[] snap;
+        private int cursor;
+
+        SnapshotItr(Object[] snap, int index) {
+            this.snap = snap;
+            this.cursor = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snap.length;
+        }
+
+        @Override
+        public Byte next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return (Byte) snap[cursor++];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public Byte previous() {
+            if (!hasPrevious()) throw new NoSuchElementException();
+            return (Byte) snap[--cursor];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Snapshot iterator is read-only");
+        }
+
+        @Override
+        public void set(Byte e) {
+            throw new UnsupportedOperationException("Snapshot iterator is read-only");
+        }
+
+        @Override
+        public void add(Byte e) {
+            throw new UnsupportedOperationException("Snapshot iterator is read-only");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes decimal representation of non-negative BigInteger into a channel
+ * without building the whole String.
+ *
+ * Divide and conquer: the value is split by 10^(LEAF_DIGITS * 2^i) into high
+ * and low halves, halves are emitted left to right, low halves zero-padded.
+ * Leaves of at most LEAF_DIGITS digits go through BigInteger.toString().
+ * Output goes through one reused direct buffer, so character data held in
+ * memory is bounded by BUFFER_SIZE; intermediate quotients still take memory
+ * proportional to the value.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class DecimalWriter {
+
+    private static final int LEAF_DIGITS = 256;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // powers.get(i) == 10^(LEAF_DIGITS * 2^i)
+    private final List<BigInteger> powers = new ArrayList<>();
+
+    private long written;
+
+    private DecimalWriter(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes value in decimal (no sign, no line terminator) and returns number of bytes written.
+     */
+    static long write(BigInteger value, WritableByteChannel out) throws IOException {
+        if (value == null || value.signum() < 0) throw new IllegalArgumentException("Non-negative value expected");
+        DecimalWriter w = new DecimalWriter(out);
+        w.writeValue(value);
+        w.flush();
+        return w.written;
+    }
+
+    private void writeValue(BigInteger value) throws IOException {
+        powers.add(RadixPowerCache.power(10, LEAF_DIGITS));
+        // smallest k with value < 10^(LEAF_DIGITS * 2^k)
+        int k = 0;
+        while (value.compareTo(powers.get(k)) >= 0) {
+            k++;
+            powers.add(RadixPowerCache.power(10, LEAF_DIGITS << k));
+        }
+        emit(value, k, false);
+    }
+
+    // Precondition: n < 10^(LEAF_DIGITS * 2^i); pad => emit exactly that many digits
+    private void emit(BigInteger n, int i, boolean pad) throws IOException {
+        if (i == 0) {
+            leaf(n, pad);
+            return;
+        }
+        BigInteger[] qr = n.divideAndRemainder(powers.get(i - 1));
+        if (pad || qr[0].signum() != 0) {
+            emit(qr[0], i - 1, pad);
+            emit(qr[1], i - 1, true);
+        } else {
+            emit(qr[1], i - 1, false);
+        }
+    }
+
+    private void leaf(BigInteger n, boolean pad) throws IOException {
+        String s = n.toString();
+        if (pad) {
+            for (int z = s.length(); z < LEAF_DIGITS; z++) put((byte) '0');
+        }
+        for (int j = 0; j < s.length(); j++) {
+            put((byte) s.charAt(j));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buf.hasRemaining()) flush();
+        buf.put(b);
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            written += out.write(buf);
+        }
+        buf.clear();
+    }
+}
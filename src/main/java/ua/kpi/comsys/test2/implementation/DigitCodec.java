@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+
+/**
+ * Base-specialized digit kernels: validation, packing of digit runs into long
+ * chunks, digit characters and conversions to / from BigInteger.
+ *
+ * One codec instance per base, chosen when a list is created, so hot loops
+ * call a codec whose base is a compile-time constant (ternary, decimal) or a
+ * shift (binary, quaternary, octal, hex) instead of branching on the base.
+ * Power-of-two bases convert by bit packing in linear time, others go through
+ * divide-and-conquer {@link RadixConversion} with the codec's chunk kernels.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+abstract class DigitCodec {
+
+    static final int MIN_BASE = 2;
+    static final int MAX_BASE = 16;
+
+    private static final char[] CHARS = "0123456789ABCDEF".toCharArray();
+
+    private static final DigitCodec[] CODECS = new DigitCodec[MAX_BASE + 1];
+
+    static {
+        for (int b = MIN_BASE; b <= MAX_BASE; b++) {
+            switch (b) {
+                case 2:  CODECS[b] = new PowerOfTwo(2, 1); break;
+                case 3:  CODECS[b] = new Ternary(); break;
+                case 4:  CODECS[b] = new PowerOfTwo(4, 2); break;
+                case 8:  CODECS[b] = new PowerOfTwo(8, 3); break;
+                case 10: CODECS[b] = new Decimal(); break;
+                case 16: CODECS[b] = new PowerOfTwo(16, 4); break;
+                default: CODECS[b] = new Generic(b);
+            }
+        }
+    }
+
+    /**
+     * Returns codec for base 2..16.
+     *
+     * @throws IllegalArgumentException for other bases
+     */
+    static DigitCodec forBase(int base) {
+        if (base < MIN_BASE || base > MAX_BASE) throw new IllegalArgumentException("Unsupported base: " + base);
+        return CODECS[base];
+    }
+
+    final int base;
+    // digits which always fit into one long chunk
+    final int chunkDigits;
+
+    DigitCodec(int base) {
+        this.base = base;
+        this.chunkDigits = RadixConversion.chunkDigits(base);
+    }
+
+    final boolean isDigit(int d) {
+        return d >= 0 && d < base;
+    }
+
+    final char toChar(byte d) {
+        return CHARS[d];
+    }
+
+    /**
+     * Returns value of at most chunkDigits digits d[from..to).
+     */
+    abstract long pack(byte[] d, int from, int to);
+
+    /**
+     * Writes v as exactly count digits ending at out[end - 1].
+     */
+    abstract void unpack(long v, byte[] out, int end, int count);
+
+    /**
+     * Returns value of digits[from..to), most significant first. Digits are not validated.
+     */
+    BigInteger fromDigits(byte[] digits, int from, int to) {
+        return RadixConversion.fromDigits(digits, from, to, this);
+    }
+
+    /**
+     * Returns digits of non-negative value without leading zeros (zero is single digit).
+     */
+    byte[] toDigits(BigInteger value) {
+        return RadixConversion.toDigits(value, this);
+    }
+
+    //  Codecs
+
+    static final class Ternary extends DigitCodec {
+        Ternary() {
+            super(3);
+        }
+
+        @Override
+        long pack(byte[] d, int from, int to) {
+            long v = 0;
+            for (int i = from; i < to; i++) v = v * 3 + d[i];
+            return v;
+        }
+
+        @Override
+        void unpack(long v, byte[] out, int end, int count) {
+            for (int i = end - 1; i >= end - count; i--) {
+                long q = v / 3;
+                out[i] = (byte) (v - q * 3);
+                v = q;
+            }
+        }
+    }
+
+    static final class Decimal extends DigitCodec {
+        Decimal() {
+            super(10);
+        }
+
+        @Override
+        long pack(byte[] d, int from, int to) {
+            long v = 0;
+            for (int i = from; i < to; i++) v = v * 10 + d[i];
+            return v;
+        }
+
+        @Override
+        void unpack(long v, byte[] out, int end, int count) {
+            for (int i = end - 1; i >= end - count; i--) {
+                long q = v / 10;
+                out[i] = (byte) (v - q * 10);
+                v = q;
+            }
+        }
+    }
+
+    static final class Generic extends DigitCodec {
+        Generic(int base) {
+            super(base);
+        }
+
+        @Override
+        long pack(byte[] d, int from, int to) {
+            long v = 0;
+            for (int i = from; i < to; i++) v = v * base + d[i];
+            return v;
+        }
+
+        @Override
+        void unpack(long v, byte[] out, int end, int count) {
+            for (int i = end - 1; i >= end - count; i--) {
+                long q = v / base;
+                out[i] = (byte) (v - q * base);
+                v = q;
+            }
+        }
+    }
+
+    // Bases 2^shift: digits are bit groups of the binary magnitude
+    static final class PowerOfTwo extends DigitCodec {
+        private final int shift;
+        private final int mask;
+
+        PowerOfTwo(int base, int shift) {
+            super(base);
+            this.shift = shift;
+            this.mask = base - 1;
+        }
+
+        @Override
+        long pack(byte[] d, int from, int to) {
+            long v = 0;
+            for (int i = from; i < to; i++) v = (v << shift) | d[i];
+            return v;
+        }
+
+        @Override
+        void unpack(long v, byte[] out, int end, int count) {
+            for (int i = end - 1; i >= end - count; i--) {
+                out[i] = (byte) (v & mask);
+                v >>>= shift;
+            }
+        }
+
+        @Override
+        BigInteger fromDigits(byte[] digits, int from, int to) {
+            if (to <= from) return BigInteger.ZERO;
+            long bits = (long) (to - from) * shift;
+            byte[] mag = new byte[(int) ((bits + 7) >>> 3)];
+            int acc = 0;
+            int accBits = 0;
+            int j = mag.length - 1;
+            for (int i = to - 1; i >= from; i--) {
+                acc |= digits[i] << accBits;
+                accBits += shift;
+                if (accBits >= 8) {
+                    mag[j--] = (byte) acc;
+                    acc >>>= 8;
+                    accBits -= 8;
+                }
+            }
+            if (accBits > 0) mag[j] = (byte) acc;
+            return new BigInteger(1, mag);
+        }
+
+        @Override
+        byte[] toDigits(BigInteger value) {
+            if (value.signum() < 0) throw new IllegalArgumentException("Non-negative value expected");
+            int n = (value.bitLength() + shift - 1) / shift;
+            if (n == 0) return new byte[] {0};
+            byte[] mag = value.toByteArray();
+            byte[] out = new byte[n];
+            int acc = 0;
+            int accBits = 0;
+            int j = mag.length - 1;
+            for (int i = n - 1; i >= 0; i--) {
+                if (accBits < shift) {
+                    if (j >= 0) acc |= (mag[j--] & 0xFF) << accBits;
+                    accBits += 8;
+                }
+                out[i] = (byte) (acc & mask);
+                acc >>>= shift;
+                accBits -= shift;
+            }
+            return out;
+        }
+    }
+}
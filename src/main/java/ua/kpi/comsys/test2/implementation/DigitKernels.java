@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Data-parallel loops over digit arrays (one digit per byte): validation,
+ * digit histogram, search and bitwise OR / AND of aligned digits.
+ *
+ * SWAR kernels process 8 digits per long read through a byte array view
+ * (little-endian, so the lowest set byte is the first digit); SCALAR kernels
+ * are plain loops and serve as reference. {@link #INSTANCE} is chosen once at
+ * startup, -Dnumberlist.kernels=scalar forces the scalar loops.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+abstract class DigitKernels {
+
+    static final DigitKernels SCALAR = new Scalar();
+    static final DigitKernels SWAR = new Swar();
+
+    static final DigitKernels INSTANCE = select(System.getProperty("numberlist.kernels"));
+
+    static DigitKernels select(String name) {
+        return "scalar".equals(name) ? SCALAR : SWAR;
+    }
+
+    abstract String name();
+
+    /**
+     * Returns index of the first byte of a[from..to) which is not a digit
+     * of given base (2..16), or -1 if all are digits.
+     */
+    abstract int firstInvalid(byte[] a, int from, int to, int base);
+
+    /**
+     * Adds number of occurrences of each digit of a[from..to) to cnt[digit];
+     * all bytes must be digits of base cnt.length.
+     */
+    abstract void count(byte[] a, int from, int to, long[] cnt);
+
+    /**
+     * Returns index of the first v in a[from..to), or -1.
+     */
+    abstract int indexOf(byte[] a, int from, int to, byte v);
+
+    /**
+     * dst[dstFrom + i] = a[aFrom + i] | b[bFrom + i] (or &amp; if and), for i in [0, len).
+     */
+    abstract void bitwise(byte[] a, int aFrom, byte[] b, int bFrom, byte[] dst, int dstFrom, int len, boolean and);
+
+    /**
+     * Returns digits of a OR b (a AND b if and) for two numbers in the same
+     * power-of-two base, most significant first: digits of such bases map to
+     * disjoint bit groups, so the operation is applied digit by digit to the
+     * right-aligned arrays. Result has no leading zeros ("0" for zero).
+     */
+    final byte[] bitwiseDigits(byte[] a, byte[] b, boolean and) {
+        if (a.length < b.length) {
+            byte[] t = a;
+            a = b;
+            b = t;
+        }
+        int shift = a.length - b.length;
+        byte[] res;
+        if (and) {
+            res = new byte[b.length];
+            bitwise(a, shift, b, 0, res, 0, b.length, true);
+        } else {
+            res = a.clone();
+            bitwise(a, shift, b, 0, res, shift, b.length, false);
+        }
+        if (res.length == 0) return new byte[] {0};
+        int p = 0;
+        while (p < res.length - 1 && res[p] == 0) p++;
+        if (p == 0) return res;
+        byte[] trimmed = new byte[res.length - p];
+        System.arraycopy(res, p, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    //  Scalar
+
+    static final class Scalar extends DigitKernels {
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+        @Override
+        int firstInvalid(byte[] a, int from, int to, int base) {
+            for (int i = from; i < to; i++) {
+                if ((a[i] & 0xFF) >= base) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        void count(byte[] a, int from, int to, long[] cnt) {
+            for (int i = from; i < to; i++) cnt[a[i]]++;
+        }
+
+        @Override
+        int indexOf(byte[] a, int from, int to, byte v) {
+            for (int i = from; i < to; i++) {
+                if (a[i] == v) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        void bitwise(byte[] a, int aFrom, byte[] b, int bFrom, byte[] dst, int dstFrom, int len, boolean and) {
+            for (int i = 0; i < len; i++) {
+                dst[dstFrom + i] = (byte) (and ? a[aFrom + i] & b[bFrom + i] : a[aFrom + i] | b[bFrom + i]);
+            }
+        }
+    }
+
+    //  SWAR: 8 digits per long
+
+    static final class Swar extends DigitKernels {
+
+        private static final VarHandle LONGS =
+                MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private static final long LOW = 0x0101010101010101L;
+        private static final long HIGH = 0x8080808080808080L;
+        private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+        // Above this base the histogram is counted by the scalar loop
+        static final int COUNT_MAX_BASE = 4;
+
+        @Override
+        String name() {
+            return "swar";
+        }
+
+        private static long word(byte[] a, int i) {
+            return (long) LONGS.get(a, i);
+        }
+
+        // High bit set in every byte of x which is zero
+        private static long zeroBytes(long x) {
+            return ~(((x & LOW7) + LOW7) | x) & HIGH;
+        }
+
+        @Override
+        int firstInvalid(byte[] a, int from, int to, int base) {
+            // (b & 0x7F) + (0x80 - base) reaches the high bit iff b & 0x7F >= base, no carry between bytes
+            long bias = LOW * (0x80 - base);
+            int i = from;
+            for (; i + 8 <= to; i += 8) {
+                long x = word(a, i);
+                long bad = (((x & LOW7) + bias) | x) & HIGH;
+                if (bad != 0) return i + (Long.numberOfTrailingZeros(bad) >>> 3);
+            }
+            return SCALAR.firstInvalid(a, i, to, base);
+        }
+
+        @Override
+        void count(byte[] a, int from, int to, long[] cnt) {
+            int base = cnt.length;
+            if (base > COUNT_MAX_BASE) {
+                SCALAR.count(a, from, to, cnt);
+                return;
+            }
+            // Digits below 4 have two bits: bit counts give counts of 1, 2 and 3
+            long bit0 = 0;
+            long bit1 = 0;
+            long both = 0;
+            int i = from;
+            for (; i + 8 <= to; i += 8) {
+                long x = word(a, i);
+                bit0 += Long.bitCount(x & LOW);
+                bit1 += Long.bitCount(x & (LOW << 1));
+                both += Long.bitCount(x & (x >>> 1) & LOW);
+            }
+            long n = i - from;
+            long ones = bit0 - both;
+            long twos = bit1 - both;
+            cnt[0] += n - ones - twos - both;
+            cnt[1] += ones;
+            if (base > 2) cnt[2] += twos;
+            if (base > 3) cnt[3] += both;
+            SCALAR.count(a, i, to, cnt);
+        }
+
+        @Override
+        int indexOf(byte[] a, int from, int to, byte v) {
+            long pattern = LOW * (v & 0xFF);
+            int i = from;
+            for (; i + 8 <= to; i += 8) {
+                long z = zeroBytes(word(a, i) ^ pattern);
+                if (z != 0) return i + (Long.numberOfTrailingZeros(z) >>> 3);
+            }
+            return SCALAR.indexOf(a, i, to, v);
+        }
+
+        @Override
+        void bitwise(byte[] a, int aFrom, byte[] b, int bFrom, byte[] dst, int dstFrom, int len, boolean and) {
+            int i = 0;
+            for (; i + 8 <= len; i += 8) {
+                long x = word(a, aFrom + i);
+                long y = word(b, bFrom + i);
+                LONGS.set(dst, dstFrom + i, and ? x & y : x | y);
+            }
+            SCALAR.bitwise(a, aFrom + i, b, bFrom + i, dst, dstFrom + i, len - i, and);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * NumberList persisted incrementally: binary snapshot plus append-only journal of mutations.
+ *
+ * Every mutation (including swap, sorts and shifts) is applied to the in-memory
+ * NumberListImpl and recorded in the journal as a few bytes. Records are fsynced
+ * in groups of groupSize (group commit), sync() forces the current group.
+ * compact() writes a full snapshot and starts an empty journal.
+ * open() recovers the list as snapshot plus replay of the valid journal prefix.
+ *
+ * Persistence cost therefore depends on the mutation rate, not on the number size.
+ * If writing to the journal fails, the mutation is already applied in memory
+ * and UncheckedIOException is thrown. Not thread-safe.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public class JournaledNumberList implements NumberList, Closeable {
+
+    /**
+     * Default number of records per fsync.
+     */
+    public static final int DEFAULT_GROUP_SIZE = 64;
+
+    private final NumberListImpl list;
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final int groupSize;
+    private MutationJournal journal;
+
+    private JournaledNumberList(NumberListImpl list, Path snapshotPath, Path journalPath, int groupSize,
+                                MutationJournal journal) {
+        this.list = list;
+        this.snapshotPath = snapshotPath;
+        this.journalPath = journalPath;
+        this.groupSize = groupSize;
+        this.journal = journal;
+    }
+
+    //  Opening / recovery
+
+    /**
+     * Opens (or creates) journaled list with default group size.
+     */
+    public static JournaledNumberList open(Path snapshot, Path journal) throws IOException {
+        return open(snapshot, journal, DEFAULT_GROUP_SIZE);
+    }
+
+    /**
+     * Recovers list from snapshot and journal. Missing snapshot means empty list,
+     * journal which does not belong to the snapshot is discarded.
+     *
+     * @param groupSize - records written per fsync
+     */
+    public static JournaledNumberList open(Path snapshot, Path journal, int groupSize) throws IOException {
+        if (snapshot == null || journal == null) throw new NullPointerException();
+        if (groupSize <= 0) throw new IllegalArgumentException("groupSize must be positive");
+
+        NumberListImpl list;
+        int crc = 0;
+        long size = 0;
+        if (Files.isRegularFile(snapshot)) {
+            list = NumberListBinaryFormat.read(snapshot);
+            crc = NumberListBinaryFormat.storedChecksum(snapshot);
+            size = Files.size(snapshot);
+        } else {
+            list = new NumberListImpl();
+        }
+
+        long valid = MutationJournal.replay(journal, crc, size, list);
+        MutationJournal j = (valid < 0)
+                ? MutationJournal.create(journal, crc, size, groupSize)
+                : MutationJournal.append(journal, valid, groupSize);
+        return new JournaledNumberList(list, snapshot, journal, groupSize, j);
+    }
+
+    //  Persistence
+
+    /**
+     * Forces all recorded mutations to disk.
+     */
+    public void sync() throws IOException {
+        journal.commit();
+    }
+
+    /**
+     * Writes full snapshot of current value and starts empty journal.
+     * Crash at any point leaves either old snapshot + old journal or new snapshot.
+     */
+    public void compact() throws IOException {
+        journal.commit();
+
+        Path dir = snapshotPath.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, snapshotPath.getFileName().toString(), ".tmp");
+        try {
+            NumberListBinaryFormat.write(list, tmp);
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        journal.close();
+        journal = MutationJournal.create(journalPath, NumberListBinaryFormat.storedChecksum(snapshotPath),
+                Files.size(snapshotPath), groupSize);
+    }
+
+    /**
+     * Commits pending records and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private void record(IORecord r) {
+        try {
+            r.run();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private interface IORecord {
+        void run() throws IOException;
+    }
+
+    //  NumberListImpl extras
+
+    /**
+     * See {@link NumberListImpl#toDecimalString()}.
+     */
+    public String toDecimalString() {
+        return list.toDecimalString();
+    }
+
+    /**
+     * See {@link NumberListImpl#changeScale()}.
+     */
+    public NumberListImpl changeScale() {
+        return list.changeScale();
+    }
+
+    /**
+     * See {@link NumberListImpl#changeScale(int)}.
+     */
+    public NumberListImpl changeScale(int targetBase) {
+        return list.changeScale(targetBase);
+    }
+
+    /**
+     * See {@link NumberListImpl#additionalOperation(NumberList)}.
+     */
+    public NumberListImpl additionalOperation(NumberList arg) {
+        return list.additionalOperation(arg instanceof JournaledNumberList ? ((JournaledNumberList) arg).list : arg);
+    }
+
+    /**
+     * See {@link NumberListImpl#saveList(File)}.
+     */
+    public void saveList(File file) {
+        list.saveList(file);
+    }
+
+    //  Object methods
+
+    @Override
+    public String toString() {
+        return list.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        return list.equals(o instanceof JournaledNumberList ? ((JournaledNumberList) o).list : o);
+    }
+
+    @Override
+    public int hashCode() {
+        return list.hashCode();
+    }
+
+    //  Queries
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return list.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return list.containsAll(c);
+    }
+
+    @Override
+    public Byte get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return list.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return list.lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return list.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return list.toArray(a);
+    }
+
+    @Override
+    public List<Byte> subList(int fromIndex, int toIndex) {
+        return list.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Iterator<Byte> iterator() {
+        return new JournaledItr(list.listIterator());
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator() {
+        return new JournaledItr(list.listIterator());
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator(int index) {
+        return new JournaledItr(list.listIterator(index));
+    }
+
+    //  Mutators
+
+    @Override
+    public boolean add(final Byte e) {
+        list.add(e);
+        record(() -> journal.add(e));
+        return true;
+    }
+
+    @Override
+    public void add(final int index, final Byte element) {
+        list.add(index, element);
+        record(() -> journal.insert(index, element));
+    }
+
+    @Override
+    public Byte set(final int index, final Byte element) {
+        Byte old = list.set(index, element);
+        record(() -> journal.set(index, element));
+        return old;
+    }
+
+    @Override
+    public Byte remove(final int index) {
+        Byte old = list.remove(index);
+        record(() -> journal.removeAt(index));
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = list.indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Byte> c) {
+        if (c == null) throw new NullPointerException();
+        Object[] items = c.toArray();
+        for (Object x : items) {
+            add((Byte) x);
+        }
+        return items.length > 0;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Byte> c) {
+        if (c == null) throw new NullPointerException();
+        if (index < 0 || index > list.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + list.size());
+        }
+        Object[] items = c.toArray();
+        int i = index;
+        for (Object x : items) {
+            add(i++, (Byte) x);
+        }
+        return items.length > 0;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(c, true);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(c, false);
+    }
+
+    private boolean removeIf(Collection<?> c, boolean whenContained) {
+        boolean changed = false;
+        Iterator<Byte> it = iterator();
+        while (it.hasNext()) {
+            if (c.contains(it.next()) == whenContained) {
+                it.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+        record(() -> journal.op(MutationJournal.CLEAR));
+    }
+
+    //  NumberList extra methods
+
+    @Override
+    public boolean swap(final int index1, final int index2) {
+        if (!list.swap(index1, index2)) return false;
+        record(() -> journal.swap(index1, index2));
+        return true;
+    }
+
+    @Override
+    public void sortAscending() {
+        list.sortAscending();
+        record(() -> journal.op(MutationJournal.SORT_ASC));
+    }
+
+    @Override
+    public void sortDescending() {
+        list.sortDescending();
+        record(() -> journal.op(MutationJournal.SORT_DESC));
+    }
+
+    @Override
+    public void shiftLeft() {
+        list.shiftLeft();
+        record(() -> journal.op(MutationJournal.SHIFT_LEFT));
+    }
+
+    @Override
+    public void shiftRight() {
+        list.shiftRight();
+        record(() -> journal.op(MutationJournal.SHIFT_RIGHT));
+    }
+
+    //  Iterator recording modifications by index
+
+    private final class JournaledItr implements ListIterator<Byte> {
+        private final ListIterator<Byte> it;
+        private int lastIndex = -1;
+
+        JournaledItr(ListIterator<Byte> it) {
+            this.it = it;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Byte next() {
+            lastIndex = it.nextIndex();
+            return it.next();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return it.hasPrevious();
+        }
+
+        @Override
+        public Byte previous() {
+            lastIndex = it.previousIndex();
+            return it.previous();
+        }
+
+        @Override
+        public int nextIndex() {
+            return it.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return it.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            it.remove();
+            final int index = lastIndex;
+            lastIndex = -1;
+            record(() -> journal.removeAt(index));
+        }
+
+        @Override
+        public void set(final Byte e) {
+            it.set(e);
+            final int index = lastIndex;
+            record(() -> journal.set(index, e));
+        }
+
+        @Override
+        public void add(final Byte e) {
+            final int index = it.nextIndex();
+            it.add(e);
+            lastIndex = -1;
+            record(() -> journal.insert(index, e));
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+/**
+ * Arithmetic on numbers packed into long limbs of radix base^k.
+ *
+ * A number is long[] of limbs, least significant first, each limb holding
+ * k = {@link DigitCodec#chunkDigits} digits (3^39 for ternary). Since
+ * radix < 2^63, sums of two limbs fit into unsigned long and limb products
+ * are handled as 128-bit values (Math.multiplyHigh).
+ *
+ * Compare, add, subtract and division by one limb are linear in limbs,
+ * multiply is schoolbook;
+ * for same-base operands this avoids conversion to BigInteger and back,
+ * and works on k digits per loop iteration instead of one.
+ * Bitwise AND / OR need the binary value: limbs are converted to 64-bit
+ * words and back (quadratic, meant for small and medium operands).
+ * The linked list of digits stays the public representation, limbs are
+ * built on demand from its digit array.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class Limbs {
+
+    private static final long MASK32 = 0xFFFFFFFFL;
+
+    private Limbs() {
+    }
+
+    /**
+     * Returns radix of one limb, base^chunkDigits.
+     */
+    static long radix(DigitCodec codec) {
+        long r = 1;
+        for (int i = 0; i < codec.chunkDigits; i++) r *= codec.base;
+        return r;
+    }
+
+    //  Packing
+
+    /**
+     * Packs digits[0..len) (most significant first) into limbs without high zero limbs.
+     */
+    static long[] pack(byte[] digits, int len, DigitCodec codec) {
+        int k = codec.chunkDigits;
+        long[] limbs = new long[(len + k - 1) / k];
+        int n = 0;
+        for (int end = len; end > 0; end -= k) {
+            limbs[n++] = codec.pack(digits, Math.max(0, end - k), end);
+        }
+        return trim(limbs, n);
+    }
+
+    /**
+     * Returns digits (most significant first) without leading zeros; zero is single digit.
+     */
+    static byte[] unpack(long[] limbs, DigitCodec codec) {
+        int n = limbs.length;
+        if (n == 0) return new byte[] {0};
+        int k = codec.chunkDigits;
+        byte[] out = new byte[n * k];
+        for (int i = 0; i < n; i++) {
+            codec.unpack(limbs[i], out, out.length - i * k, k);
+        }
+        int lead = 0;
+        while (lead < out.length - 1 && out[lead] == 0) lead++;
+        if (lead == 0) return out;
+        byte[] res = new byte[out.length - lead];
+        System.arraycopy(out, lead, res, 0, res.length);
+        return res;
+    }
+
+    private static long[] trim(long[] limbs, int n) {
+        while (n > 0 && limbs[n - 1] == 0) n--;
+        if (n == limbs.length) return limbs;
+        long[] res = new long[n];
+        System.arraycopy(limbs, 0, res, 0, n);
+        return res;
+    }
+
+    //  Arithmetic
+
+    static int compare(long[] a, long[] b) {
+        if (a.length != b.length) return a.length < b.length ? -1 : 1;
+        for (int i = a.length - 1; i >= 0; i--) {
+            if (a[i] != b[i]) return a[i] < b[i] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    static long[] add(long[] a, long[] b, long radix) {
+        if (a.length < b.length) {
+            long[] t = a;
+            a = b;
+            b = t;
+        }
+        long[] res = new long[a.length + 1];
+        long carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            long s = a[i] + (i < b.length ? b[i] : 0) + carry;
+            if (Long.compareUnsigned(s, radix) >= 0) {
+                s -= radix;
+                carry = 1;
+            } else {
+                carry = 0;
+            }
+            res[i] = s;
+        }
+        res[a.length] = carry;
+        return trim(res, res.length);
+    }
+
+    /**
+     * Returns a - b, or empty (zero) if a < b.
+     */
+    static long[] subtract(long[] a, long[] b, long radix) {
+        if (compare(a, b) <= 0) return new long[0];
+        long[] res = new long[a.length];
+        long borrow = 0;
+        for (int i = 0; i < a.length; i++) {
+            long s = a[i] - (i < b.length ? b[i] : 0) - borrow;
+            if (s < 0) {
+                s += radix;
+                borrow = 1;
+            } else {
+                borrow = 0;
+            }
+            res[i] = s;
+        }
+        return trim(res, res.length);
+    }
+
+    static long[] multiply(long[] a, long[] b, long radix) {
+        if (a.length == 0 || b.length == 0) return new long[0];
+        long[] res = new long[a.length + b.length];
+        for (int i = 0; i < a.length; i++) {
+            long x = a[i];
+            if (x == 0) continue;
+            long carry = 0;
+            for (int j = 0; j < b.length; j++) {
+                // t = x * b[j] + res[i + j] + carry < radix^2 + 2 * radix, as 128 bits (hi, lo)
+                long lo = x * b[j];
+                long hi = Math.multiplyHigh(x, b[j]);
+                long add = res[i + j] + carry;
+                long sum = lo + add;
+                if (Long.compareUnsigned(sum, lo) < 0) hi++;
+                long q = divide128(hi, sum, radix);
+                res[i + j] = sum - q * radix;
+                carry = q;
+            }
+            res[i + b.length] = carry;
+        }
+        return trim(res, res.length);
+    }
+
+    /**
+     * Returns {quotient, remainder} of a / d for one-limb divisor 0 &lt; d &lt; radix,
+     * in one pass from the most significant limb.
+     */
+    static long[][] divide(long[] a, long d, long radix) {
+        long[] q = new long[a.length];
+        long rem = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            // t = rem * radix + a[i] < d * radix, as 128 bits (hi, lo)
+            long lo = rem * radix;
+            long hi = Math.multiplyHigh(rem, radix);
+            long sum = lo + a[i];
+            if (Long.compareUnsigned(sum, lo) < 0) hi++;
+            q[i] = divide128(hi, sum, d);
+            rem = sum - q[i] * d;
+        }
+        return new long[][] {trim(q, q.length), rem == 0 ? new long[0] : new long[] {rem}};
+    }
+
+    //  Binary words
+
+    /**
+     * Returns value of limbs as unsigned 64-bit words, least significant first,
+     * without high zero words (Horner scheme, words = words * radix + limb).
+     */
+    static long[] toWords(long[] limbs, long radix) {
+        // radix < 2^63, so n limbs fit into n words
+        long[] w = new long[limbs.length];
+        int n = 0;
+        for (int i = limbs.length - 1; i >= 0; i--) {
+            long carry = limbs[i];
+            for (int j = 0; j < n; j++) {
+                long x = w[j];
+                // unsigned x * radix as 128 bits (hi, lo), radix is positive
+                long lo = x * radix;
+                long hi = Math.multiplyHigh(x, radix) + ((x >> 63) & radix);
+                long sum = lo + carry;
+                if (Long.compareUnsigned(sum, lo) < 0) hi++;
+                w[j] = sum;
+                carry = hi;
+            }
+            if (carry != 0) w[n++] = carry;
+        }
+        return trim(w, n);
+    }
+
+    /**
+     * Returns limbs of value given by unsigned 64-bit words (least significant
+     * first), by repeated division of the words by radix.
+     */
+    static long[] fromWords(long[] words, long radix) {
+        long[] w = words.clone();
+        int n = w.length;
+        while (n > 0 && w[n - 1] == 0) n--;
+        // each limb takes at least floor(log2(radix)) bits of the value
+        int limbBits = 63 - Long.numberOfLeadingZeros(radix);
+        long[] limbs = new long[(int) ((64L * n) / limbBits) + 1];
+        int m = 0;
+        while (n > 0) {
+            long rem = 0;
+            for (int j = n - 1; j >= 0; j--) {
+                long q = divide128(rem, w[j], radix);
+                rem = w[j] - q * radix;
+                w[j] = q;
+            }
+            limbs[m++] = rem;
+            while (n > 0 && w[n - 1] == 0) n--;
+        }
+        return trim(limbs, m);
+    }
+
+    static long[] or(long[] a, long[] b) {
+        if (a.length < b.length) {
+            long[] t = a;
+            a = b;
+            b = t;
+        }
+        long[] res = a.clone();
+        for (int i = 0; i < b.length; i++) res[i] |= b[i];
+        return res;
+    }
+
+    static long[] and(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        long[] res = new long[n];
+        for (int i = 0; i < n; i++) res[i] = a[i] & b[i];
+        return trim(res, n);
+    }
+
+    /**
+     * Returns unsigned (hi * 2^64 + lo) / d for 0 < d < 2^63 and hi < d
+     * (two-step 128 / 64 division, Hacker's Delight divlu).
+     */
+    static long divide128(long hi, long lo, long d) {
+        int s = Long.numberOfLeadingZeros(d);
+        long v = d << s;
+        long vn1 = v >>> 32;
+        long vn0 = v & MASK32;
+        long un32 = (hi << s) | (s == 0 ? 0 : lo >>> (64 - s));
+        long un10 = lo << s;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & MASK32;
+
+        long q1 = Long.divideUnsigned(un32, vn1);
+        long rhat = un32 - q1 * vn1;
+        while (Long.compareUnsigned(q1, 1L << 32) >= 0
+                || Long.compareUnsigned(q1 * vn0, (rhat << 32) + un1) > 0) {
+            q1--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, 1L << 32) >= 0) break;
+        }
+
+        long un21 = (un32 << 32) + un1 - q1 * v;
+        long q0 = Long.divideUnsigned(un21, vn1);
+        rhat = un21 - q0 * vn1;
+        while (Long.compareUnsigned(q0, 1L << 32) >= 0
+                || Long.compareUnsigned(q0 * vn0, (rhat << 32) + un0) > 0) {
+            q0--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, 1L << 32) >= 0) break;
+        }
+        return (q1 << 32) + q0;
+    }
+}
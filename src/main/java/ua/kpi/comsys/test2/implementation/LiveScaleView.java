@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+/**
+ * Incrementally maintained value of a list in another base, for lists that
+ * grow by appending digits at the least significant end.
+ *
+ * The value is kept as limbs of the target radix ({@link Limbs}). Appended
+ * source digits are buffered; when the converted value is requested they are
+ * folded in k = chunkDigits at a time by one pass value = value * base^k + chunk,
+ * so a changeScale after appending p digits to an n-digit number costs
+ * O(n * p / k) instead of a full conversion.
+ *
+ * The view tracks the list modCount: every mutation other than an append
+ * (or more than MAX_PENDING_CHUNKS chunks of appends) makes it stale, and the
+ * owner then recomputes the value in full and reseeds the view.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class LiveScaleView {
+
+    // Above this many pending chunks full conversion is cheaper than passes over limbs
+    static final int MAX_PENDING_CHUNKS = 64;
+
+    private final DigitCodec source;
+    private final DigitCodec target;
+    private final long radix;
+
+    // Little-endian target limbs, limbs[0..limbCount)
+    private long[] limbs = new long[0];
+    private int limbCount;
+
+    private byte[] pending = new byte[64];
+    private int pendingCount;
+
+    private boolean valid;
+    private int modCount;
+
+    // Statistics for tests and tuning
+    long incrementalUpdates;
+    long fullRecomputes;
+
+    LiveScaleView(DigitCodec source, DigitCodec target) {
+        this.source = source;
+        this.target = target;
+        this.radix = Limbs.radix(target);
+    }
+
+    int targetBase() {
+        return target.base;
+    }
+
+    /**
+     * Returns true if view holds the value of the list at given modCount.
+     */
+    boolean isCurrent(int listModCount) {
+        return valid && modCount == listModCount;
+    }
+
+    /**
+     * Records digit appended at the least significant end; newModCount is the
+     * list modCount after the append.
+     */
+    void appended(byte d, int newModCount) {
+        if (!valid || modCount != newModCount - 1) {
+            invalidate();
+            return;
+        }
+        if (pendingCount == MAX_PENDING_CHUNKS * source.chunkDigits) {
+            invalidate();
+            return;
+        }
+        if (pendingCount == pending.length) {
+            byte[] p = new byte[pending.length * 2];
+            System.arraycopy(pending, 0, p, 0, pendingCount);
+            pending = p;
+        }
+        pending[pendingCount++] = d;
+        modCount = newModCount;
+    }
+
+    void invalidate() {
+        valid = false;
+        pendingCount = 0;
+    }
+
+    /**
+     * Sets value from fully converted target digits (most significant first).
+     */
+    void reset(byte[] targetDigits, int listModCount) {
+        long[] l = Limbs.pack(targetDigits, targetDigits.length, target);
+        limbs = l;
+        limbCount = l.length;
+        pendingCount = 0;
+        modCount = listModCount;
+        valid = true;
+        fullRecomputes++;
+    }
+
+    /**
+     * Returns target digits of current value (most significant first, "0" for zero).
+     * Caller checks {@link #isCurrent} first.
+     */
+    byte[] digits() {
+        if (pendingCount > 0) {
+            int k = source.chunkDigits;
+            for (int from = 0; from < pendingCount; from += k) {
+                int to = Math.min(from + k, pendingCount);
+                long m = 1;
+                for (int i = from; i < to; i++) m *= source.base;
+                multiplyAdd(m, source.pack(pending, from, to));
+            }
+            pendingCount = 0;
+            incrementalUpdates++;
+        }
+        long[] l = new long[limbCount];
+        System.arraycopy(limbs, 0, l, 0, limbCount);
+        return Limbs.unpack(trimmed(l), target);
+    }
+
+    // limbs = limbs * m + a, for 0 < m < 2^63 and 0 <= a < m
+    private void multiplyAdd(long m, long a) {
+        long carry = a;
+        for (int i = 0; i < limbCount; i++) {
+            long x = limbs[i];
+            long lo = x * m;
+            long hi = Math.multiplyHigh(x, m);
+            long sum = lo + carry;
+            if (Long.compareUnsigned(sum, lo) < 0) hi++;
+            long q = Limbs.divide128(hi, sum, radix);
+            limbs[i] = sum - q * radix;
+            carry = q;
+        }
+        while (carry != 0) {
+            if (limbCount == limbs.length) {
+                long[] l = new long[Math.max(4, limbs.length * 2)];
+                System.arraycopy(limbs, 0, l, 0, limbCount);
+                limbs = l;
+            }
+            limbs[limbCount++] = carry % radix;
+            carry /= radix;
+        }
+    }
+
+    private static long[] trimmed(long[] l) {
+        int n = l.length;
+        while (n > 0 && l[n - 1] == 0) n--;
+        if (n == l.length) return l;
+        long[] res = new long[n];
+        System.arraycopy(l, 0, res, 0, n);
+        return res;
+    }
+}
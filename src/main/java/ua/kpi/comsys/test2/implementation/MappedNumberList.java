@@ -0,0 +1,907 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Disk-backed NumberList for numbers that do not fit into the heap.
+ *
+ * Digits (one byte each, most significant first) live in a scratch file that
+ * is read and written with positional FileChannel I/O in pages of pageSize
+ * bytes. At most maxPages heap buffers are ever allocated: the least recently
+ * used page is written back if changed and its buffer is reused for the next
+ * one. Memory is therefore bounded by pageSize * maxPages, not by the number
+ * length; memory mapping is not used because the JDK unmaps a buffer only
+ * when it is collected.
+ *
+ * Sequential iteration, get/set, appends, swap, counting sorts, saveDigits and
+ * decimal export of base 10 lists are linear passes over the file.
+ * Inserts and removals in the middle and shifts move the tail through a small
+ * buffer (linear time).
+ *
+ * Decimal export (saveList) and import (loadDecimal) of other bases, including
+ * the default base 3, convert block by block in divide and conquer (see
+ * {@link RadixConversion#emit}): digits are never in memory at once, but the
+ * value itself is, as a BigInteger of about size * log2(base) / 8 bytes (0.2
+ * byte per ternary digit) plus partial results of similar size. Such lists are
+ * thus limited by the heap and by BigInteger (2^31 bits, about 1.3 * 10^9
+ * ternary digits); an ArithmeticException is thrown above that.
+ *
+ * size() saturates at Integer.MAX_VALUE, use {@link #longSize()},
+ * {@link #get(long)} and {@link #set(long, byte)} beyond it.
+ * Not thread safe. Close the list to write back pages and delete the scratch file.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public class MappedNumberList implements NumberList, Closeable {
+
+    static final int DEFAULT_PAGE_SIZE = 1 << 20;
+    static final int DEFAULT_MAX_PAGES = 16;
+
+    // Buffer for moving ranges and streaming to files
+    private static final int COPY_BUFFER = 1 << 16;
+
+    private final int base;
+    private final DigitCodec codec;
+    private final Path file;
+    private final boolean deleteOnClose;
+    private final FileChannel ch;
+    private final int pageSize;
+    private final int maxPages;
+    // Cached pages in access order, the first one is evicted
+    private final LinkedHashMap<Long, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Last used page, most accesses are sequential
+    private Page last;
+
+    private long size;
+    private int modCount;
+    private boolean closed;
+
+    MappedNumberList(int base, Path file, boolean deleteOnClose, int pageSize, int maxPages) throws IOException {
+        if (pageSize <= 0 || maxPages <= 0) throw new IllegalArgumentException("Bad page configuration");
+        this.codec = DigitCodec.forBase(base);
+        this.base = base;
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    //  Factories
+
+    /**
+     * Creates empty list in given base backed by a temporary file, deleted on close.
+     */
+    public static MappedNumberList create(int base) throws IOException {
+        return new MappedNumberList(base, Files.createTempFile("numberlist", ".digits"), true,
+                DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Creates empty list in given base backed by given scratch file (truncated, kept on close).
+     */
+    public static MappedNumberList create(int base, Path scratch) throws IOException {
+        return new MappedNumberList(base, scratch, false, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Returns new list with the same base and digits.
+     */
+    public static MappedNumberList copyOf(NumberListImpl list) throws IOException {
+        MappedNumberList res = create(list.base());
+        for (Byte d : list) res.append(d);
+        return res;
+    }
+
+    /**
+     * Reads number written with digits of given base ("0-9A-F"), e.g. a decimal
+     * file for base 10. Surrounding whitespace is ignored; file with other
+     * characters, or missing file, gives empty list (as NumberListImpl(File)).
+     * See {@link #loadDecimal(Path, int)} for decimal files into other bases.
+     */
+    public static MappedNumberList load(Path text, int base) throws IOException {
+        MappedNumberList res = create(base);
+        if (!Files.isRegularFile(text)) return res;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(text), COPY_BUFFER)) {
+            boolean ended = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (Character.isWhitespace(c)) {
+                    ended = res.size > 0;
+                    continue;
+                }
+                int d = Character.digit(c, base);
+                if (d < 0 || ended) {
+                    res.clear();
+                    return res;
+                }
+                res.append((byte) d);
+            }
+        } catch (IOException | RuntimeException e) {
+            res.close();
+            throw e;
+        }
+        return res;
+    }
+
+    /**
+     * Reads decimal number (format of saveList: surrounding whitespace ignored)
+     * into list of given base. Base 10 is streamed as {@link #load(Path, int)};
+     * other bases are converted in blocks with memory proportional to the
+     * value's binary size, see the class comment. Invalid or missing file gives
+     * empty list, the result has no leading zeros.
+     */
+    public static MappedNumberList loadDecimal(Path text, int base) throws IOException {
+        if (base == 10) return load(text, 10);
+        MappedNumberList res = create(base);
+        if (!Files.isRegularFile(text)) return res;
+        try {
+            BigInteger value = parseDecimal(text);
+            if (value != null) {
+                long width = (long) Math.ceil(value.bitLength() / (Math.log(base) / Math.log(2))) + 1;
+                RadixConversion.emit(value, width, res.codec, res::appendSignificant);
+                if (res.size == 0) res.append((byte) 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            res.close();
+            throw e;
+        }
+        return res;
+    }
+
+    // Value of decimal file, null if it is empty or invalid
+    private static BigInteger parseDecimal(Path text) throws IOException {
+        DigitCodec decimal = DigitCodec.forBase(10);
+        RadixConversion.Accumulator acc = new RadixConversion.Accumulator(10);
+        byte[] block = new byte[RadixConversion.BLOCK_DIGITS];
+        int n = 0;
+        long digits = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(text), COPY_BUFFER)) {
+            boolean ended = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (Character.isWhitespace(c)) {
+                    ended = digits + n > 0;
+                    continue;
+                }
+                int d = Character.digit(c, 10);
+                if (d < 0 || ended) return null;
+                block[n++] = (byte) d;
+                if (n == block.length) {
+                    acc.add(decimal.fromDigits(block, 0, n), n);
+                    digits += n;
+                    n = 0;
+                }
+            }
+        }
+        if (n > 0) acc.add(decimal.fromDigits(block, 0, n), n);
+        return digits + n == 0 ? null : acc.value();
+    }
+
+    // Appends digits, skipping zeros while the list is empty
+    private void appendSignificant(byte[] d, int from, int to) {
+        if (size == 0) {
+            while (from < to && d[from] == 0) from++;
+        }
+        for (int i = from; i < to; i++) append(d[i]);
+    }
+
+    /**
+     * Returns copy in NumberListImpl (number must fit into the heap).
+     */
+    public NumberListImpl toNumberListImpl() {
+        NumberListImpl res = NumberLists.empty(base);
+        for (long i = 0; i < size; i++) res.appendDigit(get(i));
+        return res;
+    }
+
+    //  Pages
+
+    private static final class Page {
+        long index = -1;
+        final byte[] data;
+        boolean dirty;
+
+        Page(int size) {
+            data = new byte[size];
+        }
+    }
+
+    private Page page(long index) {
+        if (last != null && last.index == index) return last;
+        if (closed) throw new IllegalStateException("List is closed");
+        Page p = pages.get(index);
+        if (p == null) {
+            try {
+                if (pages.size() < maxPages) {
+                    p = new Page(pageSize);
+                } else {
+                    // Reuse buffer of the least recently used page
+                    Iterator<Page> eldest = pages.values().iterator();
+                    p = eldest.next();
+                    eldest.remove();
+                    writeBack(p);
+                }
+                load(p, index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pages.put(index, p);
+        }
+        last = p;
+        return p;
+    }
+
+    private void load(Page p, long index) throws IOException {
+        p.index = index;
+        p.dirty = false;
+        ByteBuffer bb = ByteBuffer.wrap(p.data);
+        long pos = index * pageSize;
+        while (bb.hasRemaining()) {
+            int n = ch.read(bb, pos + bb.position());
+            if (n < 0) break;
+        }
+        // Past the end of file
+        Arrays.fill(p.data, bb.position(), p.data.length, (byte) 0);
+    }
+
+    // Writes changed digits of the page below size, digits past size are garbage
+    private void writeBack(Page p) throws IOException {
+        if (!p.dirty) return;
+        p.dirty = false;
+        long pos = p.index * pageSize;
+        ByteBuffer bb = ByteBuffer.wrap(p.data, 0, (int) Math.max(0, Math.min(pageSize, size - pos)));
+        while (bb.hasRemaining()) ch.write(bb, pos + bb.position());
+    }
+
+    /**
+     * Returns number of currently cached pages.
+     */
+    public int cachedPages() {
+        return pages.size();
+    }
+
+    /**
+     * Returns bytes of currently cached pages.
+     */
+    public long cachedBytes() {
+        return (long) pages.size() * pageSize;
+    }
+
+    private void read(long pos, byte[] dst, int off, int len) {
+        while (len > 0) {
+            Page p = page(pos / pageSize);
+            int at = (int) (pos % pageSize);
+            int n = Math.min(len, pageSize - at);
+            System.arraycopy(p.data, at, dst, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void write(long pos, byte[] src, int off, int len) {
+        while (len > 0) {
+            Page p = page(pos / pageSize);
+            int at = (int) (pos % pageSize);
+            int n = Math.min(len, pageSize - at);
+            System.arraycopy(src, off, p.data, at, n);
+            p.dirty = true;
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    // Moves len digits from src to dst, ranges may overlap
+    private void move(long src, long dst, long len) {
+        if (len <= 0 || src == dst) return;
+        byte[] buf = new byte[(int) Math.min(COPY_BUFFER, len)];
+        if (dst < src) {
+            for (long done = 0; done < len; ) {
+                int n = (int) Math.min(buf.length, len - done);
+                read(src + done, buf, 0, n);
+                write(dst + done, buf, 0, n);
+                done += n;
+            }
+        } else {
+            for (long left = len; left > 0; ) {
+                int n = (int) Math.min(buf.length, left);
+                left -= n;
+                read(src + left, buf, 0, n);
+                write(dst + left, buf, 0, n);
+            }
+        }
+    }
+
+    //  Long-indexed access
+
+    public long longSize() {
+        return size;
+    }
+
+    public int base() {
+        return base;
+    }
+
+    public byte get(long index) {
+        checkElementIndex(index);
+        return page(index / pageSize).data[(int) (index % pageSize)];
+    }
+
+    public byte set(long index, byte digit) {
+        checkElementIndex(index);
+        requireDigitInBase(digit);
+        Page p = page(index / pageSize);
+        int at = (int) (index % pageSize);
+        byte old = p.data[at];
+        p.data[at] = digit;
+        p.dirty = true;
+        return old;
+    }
+
+    /**
+     * Appends digit at the least significant end.
+     */
+    public void append(byte digit) {
+        requireDigitInBase(digit);
+        Page p = page(size / pageSize);
+        p.data[(int) (size % pageSize)] = digit;
+        p.dirty = true;
+        size++;
+        modCount++;
+    }
+
+    //  Export
+
+    /**
+     * Writes digits in this list's base ("0-9A-F", leading zeros kept) into file.
+     * Streams with bounded memory.
+     */
+    public void saveDigits(Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeDigits(out, 0);
+        }
+    }
+
+    private void writeDigits(FileChannel out, long from) throws IOException {
+        byte[] buf = new byte[COPY_BUFFER];
+        for (long pos = from; pos < size; ) {
+            int n = (int) Math.min(buf.length, size - pos);
+            read(pos, buf, 0, n);
+            for (int i = 0; i < n; i++) buf[i] = (byte) codec.toChar(buf[i]);
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+            while (bb.hasRemaining()) out.write(bb);
+            pos += n;
+        }
+    }
+
+    /**
+     * Saves the number in decimal, same format as NumberListImpl.saveList.
+     * Base 10 lists are streamed with bounded memory, other bases are converted
+     * in blocks (see the class comment). If file is null or not writable => do nothing.
+     */
+    public void saveList(File target) {
+        if (target == null) return;
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (base == 10) {
+                long first = 0;
+                while (first < size && get(first) == 0) first++;
+                if (first == size) {
+                    out.write(ByteBuffer.wrap(new byte[] {'0'}));
+                } else {
+                    writeDigits(out, first);
+                }
+            } else {
+                DecimalWriter.write(toBigInteger(), out);
+            }
+        } catch (IOException ignored) {
+            // do nothing, as NumberListImpl.saveList
+        }
+    }
+
+    /**
+     * Returns decimal string of the number (the string must fit into the heap).
+     */
+    public String toDecimalString() {
+        return toBigInteger().toString(10);
+    }
+
+    // Reads digits block by block, only the value and partial results are in memory
+    private BigInteger toBigInteger() {
+        if (size * (Math.log(base) / Math.log(2)) > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Number too large for BigInteger");
+        }
+        RadixConversion.Accumulator acc = new RadixConversion.Accumulator(base);
+        byte[] block = new byte[(int) Math.min(RadixConversion.BLOCK_DIGITS, size)];
+        for (long pos = 0; pos < size; ) {
+            int n = (int) Math.min(block.length, size - pos);
+            read(pos, block, 0, n);
+            acc.add(codec.fromDigits(block, 0, n), n);
+            pos += n;
+        }
+        return acc.value();
+    }
+
+    //  Lifecycle
+
+    /**
+     * Writes back changed pages, closes scratch file and deletes it if it was temporary.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (!deleteOnClose) {
+                for (Page p : pages.values()) writeBack(p);
+                ch.truncate(size);
+            }
+        } finally {
+            pages.clear();
+            last = null;
+            ch.close();
+            if (deleteOnClose) Files.deleteIfExists(file);
+        }
+    }
+
+    //  Object methods
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size());
+        for (long i = 0; i < size; i++) sb.append(codec.toChar(get(i)));
+        return sb.toString();
+    }
+
+    /**
+     * Equal to MappedNumberList or NumberListImpl of the same base and digits,
+     * or to other List with equal elements.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof MappedNumberList) {
+            MappedNumberList other = (MappedNumberList) o;
+            if (other.base != base || other.size != size) return false;
+            byte[] a = new byte[(int) Math.min(COPY_BUFFER, size)];
+            byte[] b = new byte[a.length];
+            for (long pos = 0; pos < size; ) {
+                int n = (int) Math.min(a.length, size - pos);
+                read(pos, a, 0, n);
+                other.read(pos, b, 0, n);
+                if (!Arrays.equals(a, 0, n, b, 0, n)) return false;
+                pos += n;
+            }
+            return true;
+        }
+        if (o instanceof NumberListImpl && ((NumberListImpl) o).base() != base) return false;
+        if (!(o instanceof List)) return false;
+        List<?> other = (List<?>) o;
+        if (other.size() != size) return false;
+        long i = 0;
+        for (Object x : other) {
+            if (!(x instanceof Byte) || (Byte) x != get(i++)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same hash as NumberListImpl with equal digits.
+     */
+    @Override
+    public int hashCode() {
+        int h = 1;
+        h = 31 * h + base;
+        for (long i = 0; i < size; i++) h = 31 * h + get(i);
+        return h;
+    }
+
+    //  List basics
+
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Byte && indexOf((Byte) o, 0) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        for (Object x : c) {
+            if (!contains(x)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Byte get(int index) {
+        return get((long) index);
+    }
+
+    @Override
+    public Byte set(int index, Byte element) {
+        requireNonNullDigit(element);
+        return set((long) index, (byte) element);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Byte)) return -1;
+        long i = indexOf((Byte) o, 0);
+        return i <= Integer.MAX_VALUE ? (int) i : -1;
+    }
+
+    /**
+     * Returns index of the first v at or after from, or -1.
+     */
+    public long indexOf(byte v, long from) {
+        byte[] buf = new byte[(int) Math.min(COPY_BUFFER, Math.max(size - from, 1))];
+        for (long pos = Math.max(from, 0); pos < size; ) {
+            int n = (int) Math.min(buf.length, size - pos);
+            read(pos, buf, 0, n);
+            int i = DigitKernels.INSTANCE.indexOf(buf, 0, n, v);
+            if (i >= 0) return pos + i;
+            pos += n;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (!(o instanceof Byte)) return -1;
+        byte v = (Byte) o;
+        for (long i = Math.min(size, Integer.MAX_VALUE) - 1; i >= 0; i--) {
+            if (get(i) == v) return (int) i;
+        }
+        return -1;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] res = new Object[size()];
+        for (int i = 0; i < res.length; i++) res[i] = get((long) i);
+        return res;
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        throw new UnsupportedOperationException("toArray(T[] a) is not required by assignment");
+    }
+
+    /**
+     * Returns in-memory copy of the range, as NumberListImpl.subList does.
+     */
+    @Override
+    public List<Byte> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", Size: " + size);
+        }
+        NumberListImpl res = NumberLists.empty(base);
+        for (long i = fromIndex; i < toIndex; i++) res.appendDigit(get(i));
+        return res;
+    }
+
+    //  Mutators
+
+    @Override
+    public boolean add(Byte e) {
+        requireNonNullDigit(e);
+        append(e);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Byte element) {
+        requireNonNullDigit(element);
+        requireDigitInBase(element);
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        insert(index, element);
+    }
+
+    private void insert(long index, byte d) {
+        if (index == size) {
+            append(d);
+            return;
+        }
+        append(get(size - 1));
+        move(index, index + 1, size - 2 - index);
+        set(index, d);
+    }
+
+    @Override
+    public Byte remove(int index) {
+        return removeAt(index);
+    }
+
+    private byte removeAt(long index) {
+        byte old = get(index);
+        move(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i < 0) return false;
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Byte> c) {
+        if (c == null) throw new NullPointerException();
+        for (Byte b : c) add(b);
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Byte> c) {
+        if (c == null) throw new NullPointerException();
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        long i = index;
+        for (Byte b : c) add((int) i++, b);
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return compact(c, false);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return compact(c, true);
+    }
+
+    // Keeps digits for which c.contains(d) == keep, in one pass
+    private boolean compact(Collection<?> c, boolean keep) {
+        boolean[] kept = new boolean[base];
+        for (int d = 0; d < base; d++) kept[d] = c.contains((byte) d) == keep;
+        long j = 0;
+        for (long i = 0; i < size; i++) {
+            byte d = get(i);
+            if (kept[d]) {
+                if (i != j) set(j, d);
+                j++;
+            }
+        }
+        if (j == size) return false;
+        size = j;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    //  NumberList extra methods
+
+    @Override
+    public boolean swap(int index1, int index2) {
+        if (index1 < 0 || index2 < 0 || index1 >= size || index2 >= size) return false;
+        byte t = get((long) index1);
+        set((long) index1, get((long) index2));
+        set((long) index2, t);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void sortAscending() {
+        sort(true);
+    }
+
+    @Override
+    public void sortDescending() {
+        sort(false);
+    }
+
+    // Counting sort: one pass counting, one pass writing runs
+    private void sort(boolean ascending) {
+        if (size <= 1) return;
+        long[] cnt = new long[base];
+        byte[] buf = new byte[(int) Math.min(COPY_BUFFER, size)];
+        for (long pos = 0; pos < size; ) {
+            int n = (int) Math.min(buf.length, size - pos);
+            read(pos, buf, 0, n);
+            DigitKernels.INSTANCE.count(buf, 0, n, cnt);
+            pos += n;
+        }
+        long pos = 0;
+        for (int k = 0; k < base; k++) {
+            int d = ascending ? k : base - 1 - k;
+            Arrays.fill(buf, (byte) d);
+            for (long left = cnt[d]; left > 0; ) {
+                int n = (int) Math.min(buf.length, left);
+                write(pos, buf, 0, n);
+                pos += n;
+                left -= n;
+            }
+        }
+        modCount++;
+    }
+
+    @Override
+    public void shiftLeft() {
+        if (size <= 1) return;
+        byte first = get(0L);
+        move(1, 0, size - 1);
+        set(size - 1, first);
+        modCount++;
+    }
+
+    @Override
+    public void shiftRight() {
+        if (size <= 1) return;
+        byte lastDigit = get(size - 1);
+        move(0, 1, size - 1);
+        set(0L, lastDigit);
+        modCount++;
+    }
+
+    //  Checks
+
+    private void checkElementIndex(long index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(long index) {
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    private void requireNonNullDigit(Byte e) {
+        if (e == null) throw new NullPointerException("Null elements are not allowed");
+    }
+
+    private void requireDigitInBase(byte e) {
+        int v = e & 0xFF;
+        if (!codec.isDigit(v)) {
+            throw new IllegalArgumentException("Digit " + v + " is out of range for base " + base);
+        }
+    }
+
+    //  Iterators
+
+    @Override
+    public Iterator<Byte> iterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<Byte> listIterator(int index) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        return new Itr(index);
+    }
+
+    private final class Itr implements ListIterator<Byte> {
+        long cursor;
+        long lastReturned = -1;
+        int expectedModCount = modCount;
+
+        Itr(long index) {
+            cursor = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public Byte next() {
+            checkForComodification();
+            if (cursor >= size) throw new NoSuchElementException();
+            lastReturned = cursor;
+            return get(cursor++);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public Byte previous() {
+            checkForComodification();
+            if (cursor <= 0) throw new NoSuchElementException();
+            lastReturned = --cursor;
+            return get(cursor);
+        }
+
+        @Override
+        public int nextIndex() {
+            return (int) Math.min(cursor, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int previousIndex() {
+            return (int) Math.min(cursor - 1, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned < 0) throw new IllegalStateException();
+            removeAt(lastReturned);
+            if (lastReturned < cursor) cursor--;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(Byte e) {
+            checkForComodification();
+            requireNonNullDigit(e);
+            if (lastReturned < 0) throw new IllegalStateException();
+            MappedNumberList.this.set(lastReturned, (byte) e);
+        }
+
+        @Override
+        public void add(Byte e) {
+            checkForComodification();
+            requireNonNullDigit(e);
+            requireDigitInBase(e);
+            insert(cursor++, e);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+}
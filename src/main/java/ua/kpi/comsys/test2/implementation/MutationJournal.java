@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of NumberList mutations.
+ *
+ * Layout:
+ * <pre>
+ *     header: int magic "NLJR", int snapshotCrc, long snapshotSize
+ *     frames: int payloadLength, int crc32c(payload), payload
+ *     payload: records, each is opcode byte followed by varint arguments
+ * </pre>
+ *
+ * snapshotCrc / snapshotSize identify the snapshot the journal applies to, so
+ * a journal left over from before compaction is never replayed twice.
+ * Records are buffered and written as one frame with one fsync per group
+ * (group commit). A torn or corrupted frame ends the replay.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class MutationJournal implements Closeable {
+
+    static final int MAGIC = 0x4E4C4A52;
+    static final int HEADER_SIZE = 16;
+
+    // Opcodes
+    static final byte ADD = 1;
+    static final byte INSERT = 2;
+    static final byte SET = 3;
+    static final byte REMOVE_AT = 4;
+    static final byte CLEAR = 5;
+    static final byte SWAP = 6;
+    static final byte SORT_ASC = 7;
+    static final byte SORT_DESC = 8;
+    static final byte SHIFT_LEFT = 9;
+    static final byte SHIFT_RIGHT = 10;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RECORD = 1 + 5 + 5;
+    private static final int FRAME_HEADER = 8;
+
+    private final FileChannel ch;
+    private final int groupSize;
+    private final ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER);
+    private final CRC32C crc = new CRC32C();
+    private int pending;
+
+    private MutationJournal(FileChannel ch, int groupSize) {
+        this.ch = ch;
+        this.groupSize = groupSize;
+    }
+
+    //  Opening
+
+    /**
+     * Creates new empty journal for given snapshot (existing file is replaced).
+     */
+    static MutationJournal create(Path path, int snapshotCrc, long snapshotSize, int groupSize) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(snapshotCrc).putLong(snapshotSize).flip();
+            while (header.hasRemaining()) ch.write(header);
+            ch.force(true);
+        } catch (IOException ex) {
+            ch.close();
+            throw ex;
+        }
+        return new MutationJournal(ch, groupSize);
+    }
+
+    /**
+     * Opens existing journal for appending after its last valid frame.
+     */
+    static MutationJournal append(Path path, long validLength, int groupSize) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE);
+        try {
+            ch.truncate(validLength);
+            ch.position(validLength);
+        } catch (IOException ex) {
+            ch.close();
+            throw ex;
+        }
+        return new MutationJournal(ch, groupSize);
+    }
+
+    //  Recording
+
+    void add(byte d) throws IOException {
+        begin(ADD);
+        putVarint(d);
+        end();
+    }
+
+    void insert(int index, byte d) throws IOException {
+        begin(INSERT);
+        putVarint(index);
+        putVarint(d);
+        end();
+    }
+
+    void set(int index, byte d) throws IOException {
+        begin(SET);
+        putVarint(index);
+        putVarint(d);
+        end();
+    }
+
+    void removeAt(int index) throws IOException {
+        begin(REMOVE_AT);
+        putVarint(index);
+        end();
+    }
+
+    void swap(int index1, int index2) throws IOException {
+        begin(SWAP);
+        putVarint(index1);
+        putVarint(index2);
+        end();
+    }
+
+    void op(byte opcode) throws IOException {
+        begin(opcode);
+        end();
+    }
+
+    private void begin(byte opcode) throws IOException {
+        if (records.remaining() < MAX_RECORD) commit();
+        records.put(opcode);
+    }
+
+    private void end() throws IOException {
+        if (++pending >= groupSize) commit();
+    }
+
+    private void putVarint(int v) {
+        while ((v & ~0x7F) != 0) {
+            records.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        records.put((byte) v);
+    }
+
+    /**
+     * Writes buffered records as one frame and forces it to disk.
+     */
+    void commit() throws IOException {
+        if (records.position() == 0) return;
+        records.flip();
+        crc.reset();
+        crc.update(records.duplicate());
+        frameHeader.clear();
+        frameHeader.putInt(records.remaining()).putInt((int) crc.getValue()).flip();
+        ByteBuffer[] frame = {frameHeader, records};
+        while (frameHeader.hasRemaining() || records.hasRemaining()) {
+            ch.write(frame);
+        }
+        ch.force(false);
+        records.clear();
+        pending = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            ch.close();
+        }
+    }
+
+    //  Replay
+
+    /**
+     * Replays journal on top of target. Returns length of valid journal prefix,
+     * or -1 if journal is missing or belongs to another snapshot.
+     */
+    static long replay(Path path, int snapshotCrc, long snapshotSize, NumberListImpl target) throws IOException {
+        if (!Files.isRegularFile(path)) return -1;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!readFully(ch, header)) return -1;
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != snapshotCrc || header.getLong() != snapshotSize) {
+                return -1;
+            }
+
+            long valid = HEADER_SIZE;
+            ByteBuffer fh = ByteBuffer.allocate(FRAME_HEADER);
+            CRC32C c = new CRC32C();
+            while (true) {
+                fh.clear();
+                if (!readFully(ch, fh)) break;
+                fh.flip();
+                int len = fh.getInt();
+                int expectedCrc = fh.getInt();
+                if (len <= 0 || len > BUFFER_SIZE) break;
+                ByteBuffer payload = ByteBuffer.allocate(len);
+                if (!readFully(ch, payload)) break;
+                payload.flip();
+                c.reset();
+                c.update(payload.duplicate());
+                if ((int) c.getValue() != expectedCrc) break;
+
+                apply(payload, target);
+                valid += FRAME_HEADER + len;
+            }
+            return valid;
+        }
+    }
+
+    private static boolean readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) return false;
+        }
+        return true;
+    }
+
+    private static void apply(ByteBuffer p, NumberListImpl list) throws IOException {
+        while (p.hasRemaining()) {
+            byte op = p.get();
+            switch (op) {
+                case ADD:
+                    list.add((byte) getVarint(p));
+                    break;
+                case INSERT: {
+                    int index = getVarint(p);
+                    list.add(index, (byte) getVarint(p));
+                    break;
+                }
+                case SET: {
+                    int index = getVarint(p);
+                    list.set(index, (byte) getVarint(p));
+                    break;
+                }
+                case REMOVE_AT:
+                    list.remove(getVarint(p));
+                    break;
+                case CLEAR:
+                    list.clear();
+                    break;
+                case SWAP: {
+                    int index1 = getVarint(p);
+                    list.swap(index1, getVarint(p));
+                    break;
+                }
+                case SORT_ASC:
+                    list.sortAscending();
+                    break;
+                case SORT_DESC:
+                    list.sortDescending();
+                    break;
+                case SHIFT_LEFT:
+                    list.shiftLeft();
+                    break;
+                case SHIFT_RIGHT:
+                    list.shiftRight();
+                    break;
+                default:
+                    throw new IOException("Unknown journal record " + op);
+            }
+        }
+    }
+
+    private static int getVarint(ByteBuffer p) {
+        int v = 0;
+        int shift = 0;
+        while (true) {
+            byte b = p.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Lazy expression over NumberLists, e.g.
+ * <pre>
+ *     NumberExpr.of(a).or(b).or(c).inBase(8).evaluate();
+ * </pre>
+ *
+ * Building the expression does no work. On evaluate() every distinct leaf list
+ * is converted to BigInteger once, chains of the same associative operation
+ * are reduced without intermediate lists, and only the final value is turned
+ * back into digits. Large independent subtrees are evaluated in parallel.
+ *
+ * Leaves are read during evaluate(), they must not be modified concurrently.
+ * Result base is the base of the leftmost operand unless inBase() is used,
+ * the same way additionalOperation() keeps the base of this list.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public abstract class NumberExpr {
+
+    // Subtrees with less digits than this are evaluated in the calling thread
+    private static final long PARALLEL_THRESHOLD = 1 << 12;
+
+    private enum Op {
+        OR, AND, ADD, MULTIPLY
+    }
+
+    //  Construction
+
+    /**
+     * Returns expression consisting of single list.
+     */
+    public static NumberExpr of(NumberList list) {
+        if (list == null) throw new NullPointerException();
+        return new Leaf(list);
+    }
+
+    /**
+     * Returns expression for bitwise OR of this and given list.
+     */
+    public NumberExpr or(NumberList other) {
+        return or(of(other));
+    }
+
+    public NumberExpr or(NumberExpr other) {
+        return reduce(Op.OR, other);
+    }
+
+    /**
+     * Returns expression for bitwise AND of this and given list.
+     */
+    public NumberExpr and(NumberList other) {
+        return and(of(other));
+    }
+
+    public NumberExpr and(NumberExpr other) {
+        return reduce(Op.AND, other);
+    }
+
+    /**
+     * Returns expression for sum of this and given list.
+     */
+    public NumberExpr add(NumberList other) {
+        return add(of(other));
+    }
+
+    public NumberExpr add(NumberExpr other) {
+        return reduce(Op.ADD, other);
+    }
+
+    /**
+     * Returns expression for product of this and given list.
+     */
+    public NumberExpr multiply(NumberList other) {
+        return multiply(of(other));
+    }
+
+    public NumberExpr multiply(NumberExpr other) {
+        return reduce(Op.MULTIPLY, other);
+    }
+
+    /**
+     * Returns expression for NumberListImpl.additionalOperation of this and given list.
+     * If the operation is undefined (division by zero) the whole result is empty.
+     */
+    public NumberExpr additionalOperation(NumberList other) {
+        return additionalOperation(of(other));
+    }
+
+    public NumberExpr additionalOperation(NumberExpr other) {
+        if (other == null) throw new NullPointerException();
+        return new Additional(this, other);
+    }
+
+    /**
+     * Returns expression with the same value, which is evaluated into list with given base.
+     */
+    public NumberExpr inBase(int base) {
+        if (base < 2 || base > 16) throw new IllegalArgumentException("Unsupported base: " + base);
+        return new Scaled(unscaled(), base);
+    }
+
+    // Flattens chains of the same operation: a.or(b).or(c) is one node with three operands
+    private NumberExpr reduce(Op op, NumberExpr other) {
+        if (other == null) throw new NullPointerException();
+        List<NumberExpr> operands = new ArrayList<>();
+        flattenInto(op, this.unscaled(), operands);
+        flattenInto(op, other.unscaled(), operands);
+        return new Reduce(op, operands);
+    }
+
+    private static void flattenInto(Op op, NumberExpr e, List<NumberExpr> out) {
+        if (e instanceof Reduce && ((Reduce) e).op == op) {
+            out.addAll(((Reduce) e).operands);
+        } else {
+            out.add(e);
+        }
+    }
+
+    NumberExpr unscaled() {
+        return this;
+    }
+
+    //  Evaluation
+
+    /**
+     * Evaluates expression on common pool.
+     */
+    public NumberListImpl evaluate() {
+        return evaluate(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluates expression, independent subtrees run on given pool.
+     */
+    public NumberListImpl evaluate(ForkJoinPool pool) {
+        if (pool == null) throw new NullPointerException();
+
+        IdentityHashMap<NumberList, BigInteger> values = new IdentityHashMap<>();
+        collectLeaves(values);
+        List<NumberList> leaves = new ArrayList<>(values.keySet());
+        BigInteger[] converted = new BigInteger[leaves.size()];
+        pool.invoke(new ConvertLeaves(leaves, converted, 0, leaves.size()));
+        for (int i = 0; i < leaves.size(); i++) {
+            values.put(leaves.get(i), converted[i]);
+        }
+
+        BigInteger r = pool.invoke(new EvalTask(unscaled(), Collections.unmodifiableMap(values)));
+        return NumberListImpl.fromBigInteger(r, resultBase());
+    }
+
+    // Sum of leaf sizes, used to decide if subtree is worth forking
+    abstract long weight();
+
+    abstract int resultBase();
+
+    abstract void collectLeaves(Map<NumberList, BigInteger> out);
+
+    // Returns null if value is undefined
+    abstract BigInteger eval(Map<NumberList, BigInteger> values);
+
+    private static BigInteger apply(Op op, BigInteger a, BigInteger b) {
+        switch (op) {
+            case OR: return a.or(b);
+            case AND: return a.and(b);
+            case ADD: return a.add(b);
+            case MULTIPLY: return a.multiply(b);
+            default: throw new IllegalStateException("Unknown operation " + op);
+        }
+    }
+
+    //  Expression nodes
+
+    private static final class Leaf extends NumberExpr {
+        private final NumberList list;
+
+        Leaf(NumberList list) {
+            this.list = list;
+        }
+
+        @Override
+        long weight() {
+            return list.size();
+        }
+
+        @Override
+        int resultBase() {
+            return (list instanceof NumberListImpl) ? ((NumberListImpl) list).base() : NumberListImpl.defaultBase();
+        }
+
+        @Override
+        void collectLeaves(Map<NumberList, BigInteger> out) {
+            out.put(list, null);
+        }
+
+        @Override
+        BigInteger eval(Map<NumberList, BigInteger> values) {
+            return values.get(list);
+        }
+    }
+
+    private static final class Reduce extends NumberExpr {
+        private final Op op;
+        private final List<NumberExpr> operands;
+        private final long weight;
+
+        Reduce(Op op, List<NumberExpr> operands) {
+            this.op = op;
+            this.operands = Collections.unmodifiableList(operands);
+            long w = 0;
+            for (NumberExpr e : operands) w += e.weight();
+            this.weight = w;
+        }
+
+        @Override
+        long weight() {
+            return weight;
+        }
+
+        @Override
+        int resultBase() {
+            return operands.get(0).resultBase();
+        }
+
+        @Override
+        void collectLeaves(Map<NumberList, BigInteger> out) {
+            for (NumberExpr e : operands) e.collectLeaves(out);
+        }
+
+        @Override
+        BigInteger eval(Map<NumberList, BigInteger> values) {
+            return reduceRange(values, 0, operands.size());
+        }
+
+        BigInteger reduceRange(Map<NumberList, BigInteger> values, int lo, int hi) {
+            BigInteger acc = operands.get(lo).eval(values);
+            for (int i = lo + 1; i < hi && acc != null; i++) {
+                BigInteger v = operands.get(i).eval(values);
+                acc = (v == null) ? null : apply(op, acc, v);
+            }
+            return acc;
+        }
+
+        long weight(int lo, int hi) {
+            long w = 0;
+            for (int i = lo; i < hi; i++) w += operands.get(i).weight();
+            return w;
+        }
+    }
+
+    private static final class Additional extends NumberExpr {
+        private final NumberExpr left;
+        private final NumberExpr right;
+
+        Additional(NumberExpr left, NumberExpr right) {
+            this.left = left.unscaled();
+            this.right = right.unscaled();
+        }
+
+        @Override
+        long weight() {
+            return left.weight() + right.weight();
+        }
+
+        @Override
+        int resultBase() {
+            return left.resultBase();
+        }
+
+        @Override
+        void collectLeaves(Map<NumberList, BigInteger> out) {
+            left.collectLeaves(out);
+            right.collectLeaves(out);
+        }
+
+        @Override
+        BigInteger eval(Map<NumberList, BigInteger> values) {
+            BigInteger a = left.eval(values);
+            BigInteger b = right.eval(values);
+            return (a == null || b == null) ? null : NumberListImpl.applyOperation(a, b);
+        }
+    }
+
+    private static final class Scaled extends NumberExpr {
+        private final NumberExpr expr;
+        private final int base;
+
+        Scaled(NumberExpr expr, int base) {
+            this.expr = expr;
+            this.base = base;
+        }
+
+        @Override
+        NumberExpr unscaled() {
+            return expr;
+        }
+
+        @Override
+        long weight() {
+            return expr.weight();
+        }
+
+        @Override
+        int resultBase() {
+            return base;
+        }
+
+        @Override
+        void collectLeaves(Map<NumberList, BigInteger> out) {
+            expr.collectLeaves(out);
+        }
+
+        @Override
+        BigInteger eval(Map<NumberList, BigInteger> values) {
+            return expr.eval(values);
+        }
+    }
+
+    //  Parallel tasks
+
+    private static final class ConvertLeaves extends RecursiveAction {
+        private final List<NumberList> leaves;
+        private final BigInteger[] out;
+        private final int lo;
+        private final int hi;
+
+        ConvertLeaves(List<NumberList> leaves, BigInteger[] out, int lo, int hi) {
+            this.leaves = leaves;
+            this.out = out;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            long w = 0;
+            for (int i = lo; i < hi; i++) w += leaves.get(i).size();
+            if (hi - lo <= 1 || w < PARALLEL_THRESHOLD) {
+                for (int i = lo; i < hi; i++) {
+                    out[i] = NumberListImpl.valueOf(leaves.get(i), NumberListImpl.defaultBase());
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ConvertLeaves(leaves, out, lo, mid), new ConvertLeaves(leaves, out, mid, hi));
+        }
+    }
+
+    private static final class EvalTask extends RecursiveTask<BigInteger> {
+        private final NumberExpr expr;
+        private final Map<NumberList, BigInteger> values;
+        private final int lo;
+        private final int hi;
+
+        EvalTask(NumberExpr expr, Map<NumberList, BigInteger> values) {
+            this(expr, values, 0, (expr instanceof Reduce) ? ((Reduce) expr).operands.size() : 0);
+        }
+
+        EvalTask(NumberExpr expr, Map<NumberList, BigInteger> values, int lo, int hi) {
+            this.expr = expr;
+            this.values = values;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            if (expr instanceof Reduce) {
+                Reduce r = (Reduce) expr;
+                if (hi - lo <= 1) {
+                    return new EvalTask(r.operands.get(lo), values).compute();
+                }
+                if (r.weight(lo, hi) < PARALLEL_THRESHOLD) {
+                    return r.reduceRange(values, lo, hi);
+                }
+                // balanced pairwise reduction, halves in parallel
+                int mid = (lo + hi) >>> 1;
+                EvalTask left = new EvalTask(r, values, lo, mid);
+                left.fork();
+                BigInteger b = new EvalTask(r, values, mid, hi).compute();
+                BigInteger a = left.join();
+                return (a == null || b == null) ? null : apply(r.op, a, b);
+            }
+            if (expr instanceof Additional && expr.weight() >= PARALLEL_THRESHOLD) {
+                Additional ad = (Additional) expr;
+                EvalTask left = new EvalTask(ad.left, values);
+                left.fork();
+                BigInteger b = new EvalTask(ad.right, values).compute();
+                BigInteger a = left.join();
+                return (a == null || b == null) ? null : NumberListImpl.applyOperation(a, b);
+            }
+            return expr.eval(values);
+        }
+    }
+}
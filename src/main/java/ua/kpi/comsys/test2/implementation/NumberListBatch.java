@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Batch executor for many independent additionalOperation / changeScale calls.
+ *
+ * Work is scheduled on a work-stealing ForkJoinPool. The input range is split
+ * by accumulated digit count: neighbouring small jobs are grouped into one task
+ * until they reach the grain size, large jobs end up in tasks of their own.
+ * A single operation is never split further (it is one BigInteger call).
+ *
+ * Results are returned in input order together with per-batch statistics.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public class NumberListBatch {
+
+    /**
+     * Default amount of digits processed by one task.
+     */
+    public static final int DEFAULT_GRAIN_DIGITS = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final int grainDigits;
+
+    /**
+     * Creates batch executor on common pool with default grain size.
+     */
+    public NumberListBatch() {
+        this(ForkJoinPool.commonPool(), DEFAULT_GRAIN_DIGITS);
+    }
+
+    /**
+     * Creates batch executor on given pool.
+     *
+     * @param pool - pool to run tasks on
+     * @param grainDigits - digits (sum over operands) grouped into single task
+     */
+    public NumberListBatch(ForkJoinPool pool, int grainDigits) {
+        if (pool == null) throw new NullPointerException();
+        if (grainDigits <= 0) throw new IllegalArgumentException("grainDigits must be positive");
+        this.pool = pool;
+        this.grainDigits = grainDigits;
+    }
+
+    //  Batch operations
+
+    /**
+     * Computes left[i].additionalOperation(right[i]) for every i.
+     * Null right operand gives empty result, same as additionalOperation(null).
+     */
+    public Result additionalOperations(List<? extends NumberListImpl> left, List<? extends NumberList> right) {
+        if (left == null || right == null) throw new NullPointerException();
+        if (left.size() != right.size()) {
+            throw new IllegalArgumentException("Operand lists differ in size: " + left.size() + " vs " + right.size());
+        }
+        final NumberListImpl[] a = left.toArray(new NumberListImpl[0]);
+        final NumberList[] b = right.toArray(new NumberList[0]);
+        long[] weight = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == null) throw new NullPointerException("Null left operand at " + i);
+            weight[i] = a[i].size() + (b[i] == null ? 0 : b[i].size()) + 1;
+        }
+        return run(weight, new Job() {
+            @Override
+            public NumberListImpl apply(int i) {
+                return a[i].additionalOperation(b[i]);
+            }
+        });
+    }
+
+    /**
+     * Computes lists[i].changeScale() for every i.
+     */
+    public Result changeScales(List<? extends NumberListImpl> lists) {
+        if (lists == null) throw new NullPointerException();
+        final NumberListImpl[] a = lists.toArray(new NumberListImpl[0]);
+        long[] weight = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == null) throw new NullPointerException("Null operand at " + i);
+            weight[i] = a[i].size() + 1;
+        }
+        return run(weight, new Job() {
+            @Override
+            public NumberListImpl apply(int i) {
+                return a[i].changeScale();
+            }
+        });
+    }
+
+    //  Scheduling
+
+    private interface Job {
+        NumberListImpl apply(int index);
+    }
+
+    private Result run(long[] weight, Job job) {
+        int n = weight.length;
+        long[] prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + weight[i];
+        }
+        NumberListImpl[] out = new NumberListImpl[n];
+        long[] latency = new long[n];
+
+        long start = System.nanoTime();
+        if (n > 0) {
+            pool.invoke(new Chunk(job, prefix, out, latency, 0, n));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<NumberListImpl> results = new ArrayList<>(n);
+        Collections.addAll(results, out);
+        return new Result(results, latency, elapsed);
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private final Job job;
+        private final long[] prefix;
+        private final NumberListImpl[] out;
+        private final long[] latency;
+        private final int lo;
+        private final int hi;
+
+        Chunk(Job job, long[] prefix, NumberListImpl[] out, long[] latency, int lo, int hi) {
+            this.job = job;
+            this.prefix = prefix;
+            this.out = out;
+            this.latency = latency;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1 || prefix[hi] - prefix[lo] <= grainDigits) {
+                for (int i = lo; i < hi; i++) {
+                    long t0 = System.nanoTime();
+                    out[i] = job.apply(i);
+                    latency[i] = System.nanoTime() - t0;
+                }
+                return;
+            }
+            // split at half of the accumulated weight, not half of the count
+            long middle = prefix[lo] + (prefix[hi] - prefix[lo]) / 2;
+            int mid = Arrays.binarySearch(prefix, lo + 1, hi, middle);
+            if (mid < 0) mid = -mid - 1;
+            if (mid <= lo) mid = lo + 1;
+            if (mid >= hi) mid = hi - 1;
+            invokeAll(new Chunk(job, prefix, out, latency, lo, mid),
+                    new Chunk(job, prefix, out, latency, mid, hi));
+        }
+    }
+
+    //  Result
+
+    /**
+     * Batch results in input order with throughput and latency statistics.
+     */
+    public static final class Result {
+        private final List<NumberListImpl> results;
+        private final long[] sortedLatency;
+        private final long elapsedNanos;
+
+        Result(List<NumberListImpl> results, long[] latency, long elapsedNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.sortedLatency = latency.clone();
+            Arrays.sort(this.sortedLatency);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns results, i-th result belongs to i-th input.
+         */
+        public List<NumberListImpl> results() {
+            return results;
+        }
+
+        /**
+         * Returns number of operations in the batch.
+         */
+        public int count() {
+            return results.size();
+        }
+
+        /**
+         * Returns wall-clock time of the whole batch.
+         */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns operations per second for the whole batch.
+         */
+        public double throughput() {
+            if (elapsedNanos == 0) return 0.0;
+            return count() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns mean latency of single operation.
+         */
+        public double meanLatencyNanos() {
+            if (sortedLatency.length == 0) return 0.0;
+            double sum = 0;
+            for (long l : sortedLatency) sum += l;
+            return sum / sortedLatency.length;
+        }
+
+        /**
+         * Returns latency percentile of single operation.
+         *
+         * @param p - percentile in range [0, 100]
+         */
+        public long latencyPercentileNanos(double p) {
+            if (p < 0 || p > 100) throw new IllegalArgumentException("Percentile out of range: " + p);
+            if (sortedLatency.length == 0) return 0L;
+            int idx = (int) Math.ceil(p / 100.0 * sortedLatency.length) - 1;
+            if (idx < 0) idx = 0;
+            return sortedLatency[idx];
+        }
+
+        /**
+         * Returns maximal latency of single operation.
+         */
+        public long maxLatencyNanos() {
+            return sortedLatency.length == 0 ? 0L : sortedLatency[sortedLatency.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d elapsed=%.3fms throughput=%.1f ops/s p50=%dns p99=%dns max=%dns",
+                    count(), elapsedNanos / 1e6, throughput(),
+                    latencyPercentileNanos(50), latencyPercentileNanos(99), maxLatencyNanos());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Native binary file format for NumberListImpl, no radix conversion on save or load.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *     int   magic          0x4E4C5354 ("NLST")
+ *     short version        1
+ *     byte  base           2..16
+ *     byte  bitsPerDigit   1, 2 or 4
+ *     long  digitCount
+ *     byte[] digits        packed most significant first, high bits of each byte first
+ *     int   crc32c         over all preceding bytes
+ * </pre>
+ *
+ * Saving streams packed digits through a direct buffer into FileChannel, loading
+ * maps the file in windows. Both are linear in the number of digits.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListBinaryFormat {
+
+    static final int MAGIC = 0x4E4C5354;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    private NumberListBinaryFormat() {
+    }
+
+    //  Save
+
+    /**
+     * Writes list into file in binary format (file is created or truncated).
+     */
+    public static void write(NumberListImpl list, Path path) throws IOException {
+        if (list == null || path == null) throw new NullPointerException();
+
+        NumberListEvents.FileIO ev = new NumberListEvents.FileIO();
+        ev.begin();
+        int base = list.base();
+        int bits = bitsPerDigit(base);
+        int perByte = 8 / bits;
+        CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buf.putInt(MAGIC).putShort(VERSION).put((byte) base).put((byte) bits).putLong(list.size());
+
+            int acc = 0;
+            int n = 0;
+            for (Byte d : list) {
+                acc = (acc << bits) | d;
+                if (++n == perByte) {
+                    if (!buf.hasRemaining()) flush(ch, buf, crc);
+                    buf.put((byte) acc);
+                    acc = 0;
+                    n = 0;
+                }
+            }
+            if (n > 0) {
+                if (!buf.hasRemaining()) flush(ch, buf, crc);
+                buf.put((byte) (acc << (bits * (perByte - n))));
+            }
+            flush(ch, buf, crc);
+
+            buf.putInt((int) crc.getValue());
+            flush(ch, buf, null);
+
+            if (ev.shouldCommit()) {
+                ev.operation = NumberListEvents.SAVE;
+                ev.format = "binary";
+                ev.path = path.toString();
+                ev.bytes = ch.position();
+                ev.base = base;
+                ev.digits = list.size();
+                ev.commit();
+            }
+        }
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf, CRC32C crc) throws IOException {
+        buf.flip();
+        if (crc != null) crc.update(buf.duplicate());
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    //  Load
+
+    /**
+     * Reads list from file in binary format.
+     *
+     * @throws IOException if file cannot be read, is not in this format or is corrupted
+     */
+    public static NumberListImpl read(Path path) throws IOException {
+        if (path == null) throw new NullPointerException();
+
+        NumberListEvents.FileIO ev = new NumberListEvents.FileIO();
+        ev.begin();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            if (fileSize < HEADER_SIZE + 4) throw new IOException("Truncated NumberList file: " + path);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (ch.read(header, header.position()) < 0) throw new IOException("Truncated NumberList file: " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("Not a NumberList binary file: " + path);
+            short version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported NumberList file version " + version);
+            int base = header.get();
+            int bits = header.get();
+            long count = header.getLong();
+            if (base < 2 || base > 16 || bits != bitsPerDigit(base) || count < 0 || count > Integer.MAX_VALUE) {
+                throw new IOException("Corrupted NumberList header: " + path);
+            }
+            int perByte = 8 / bits;
+            long payload = (count + perByte - 1) / perByte;
+            if (fileSize != HEADER_SIZE + payload + 4) throw new IOException("Corrupted NumberList file size: " + path);
+
+            CRC32C crc = new CRC32C();
+            header.flip();
+            crc.update(header);
+
+            NumberListImpl res = NumberListImpl.withBase(base);
+            int mask = (1 << bits) - 1;
+            long remaining = count;
+            for (long pos = HEADER_SIZE; pos < HEADER_SIZE + payload; pos += WINDOW_SIZE) {
+                long len = Math.min(WINDOW_SIZE, HEADER_SIZE + payload - pos);
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                crc.update(window.duplicate());
+                while (window.hasRemaining()) {
+                    int b = window.get() & 0xFF;
+                    for (int shift = 8 - bits; shift >= 0 && remaining > 0; shift -= bits) {
+                        int d = (b >>> shift) & mask;
+                        if (d >= base) throw new IOException("Digit " + d + " is out of range for base " + base);
+                        res.appendDigit((byte) d);
+                        remaining--;
+                    }
+                }
+            }
+
+            if (readTrailer(ch, fileSize, path) != (int) crc.getValue()) throw new IOException("Checksum mismatch: " + path);
+            if (ev.shouldCommit()) {
+                ev.operation = NumberListEvents.LOAD;
+                ev.format = "binary";
+                ev.path = path.toString();
+                ev.bytes = fileSize;
+                ev.base = base;
+                ev.digits = count;
+                ev.commit();
+            }
+            return res;
+        }
+    }
+
+    // Returns stored CRC32C trailer of a file in this format (not verified)
+    static int storedChecksum(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            if (fileSize < HEADER_SIZE + 4) throw new IOException("Truncated NumberList file: " + path);
+            return readTrailer(ch, fileSize, path);
+        }
+    }
+
+    private static int readTrailer(FileChannel ch, long fileSize, Path path) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        while (trailer.hasRemaining()) {
+            if (ch.read(trailer, fileSize - 4 + trailer.position()) < 0) throw new IOException("Truncated NumberList file: " + path);
+        }
+        trailer.flip();
+        return trailer.getInt();
+    }
+
+    // Digits are packed in power-of-two widths so they never cross byte boundary
+    static int bitsPerDigit(int base) {
+        if (base <= 2) return 1;
+        if (base <= 4) return 2;
+        return 4;
+    }
+}
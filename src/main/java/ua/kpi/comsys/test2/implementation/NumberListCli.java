@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Command-line converter: reads decimal numbers, one per line, from stdin or
+ * files and writes one result line per input line, so a whole feed is
+ * processed by one JVM.
+ *
+ * <pre>
+ * Usage: NumberListCli [options] [FILE...]     (no files or "-" reads stdin)
+ *   --scale [BASE]     changeScale to BASE, next base of record book by default
+ *   --op DECIMAL       additionalOperation with DECIMAL as right operand
+ *   --base BASE        base of input lists (record book base by default)
+ *   --decimal          print results in decimal instead of their own base
+ *   --threads N        worker threads (all cores by default)
+ *   --quiet            do not print throughput to stderr
+ * </pre>
+ *
+ * Lines are grouped into batches processed on a ForkJoinPool; a bounded
+ * window of batches is in flight and results are written in input order.
+ * Invalid or negative numbers give empty lines, as NumberListImpl(String)
+ * gives empty lists.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListCli {
+
+    // Batch limits: lines and input characters
+    static final int BATCH_LINES = 1024;
+    static final int BATCH_CHARS = 1 << 20;
+
+    private static final String USAGE = "Usage: NumberListCli [--scale [BASE] | --op DECIMAL] [--base BASE]"
+            + " [--decimal] [--threads N] [--quiet] [FILE...]";
+
+    private int base = NumberListImpl.defaultBase();
+    private int scale;          // 0: no scale change, -1: record book next base
+    private String operand;
+    private boolean decimal;
+    private boolean quiet;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final List<String> files = new ArrayList<>();
+
+    private NumberListImpl right;
+    private long numbers;
+    private long inputChars;
+
+    private NumberListCli() {
+    }
+
+    public static void main(String[] args) {
+        int rc = run(args, System.in, System.out, System.err);
+        if (rc != 0) System.exit(rc);
+    }
+
+    /**
+     * Runs the tool, returns exit code (0 ok, 1 I/O error, 2 bad arguments).
+     */
+    static int run(String[] args, InputStream stdin, OutputStream stdout, PrintStream stderr) {
+        NumberListCli cli = new NumberListCli();
+        try {
+            cli.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        }
+        ForkJoinPool pool = new ForkJoinPool(cli.threads);
+        long t0 = System.nanoTime();
+        // stdin and stdout are flushed, never closed
+        Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.US_ASCII), 1 << 16);
+        try {
+            if (cli.files.isEmpty()) cli.files.add("-");
+            for (String f : cli.files) {
+                boolean std = f.equals("-");
+                Reader r = std
+                        ? new InputStreamReader(stdin, StandardCharsets.US_ASCII)
+                        : Files.newBufferedReader(Paths.get(f), StandardCharsets.US_ASCII);
+                try {
+                    cli.process(new BufferedReader(r, 1 << 16), out, pool);
+                } finally {
+                    if (!std) r.close();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            stderr.println("I/O error: " + e.getMessage());
+            return 1;
+        } finally {
+            pool.shutdown();
+        }
+        if (!cli.quiet) {
+            double s = Math.max(System.nanoTime() - t0, 1) / 1e9;
+            stderr.printf("%d numbers, %d input chars in %.3f s: %.0f numbers/s, %.0f chars/s%n",
+                    cli.numbers, cli.inputChars, s, cli.numbers / s, cli.inputChars / s);
+        }
+        return 0;
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--scale":
+                    scale = -1;
+                    if (i + 1 < args.length && args[i + 1].matches("\\d+")) scale = parseBase(args[++i]);
+                    break;
+                case "--op":
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("--op needs a decimal operand");
+                    operand = args[++i];
+                    break;
+                case "--base":
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("--base needs a value");
+                    base = parseBase(args[++i]);
+                    break;
+                case "--threads":
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("--threads needs a value");
+                    threads = Integer.parseInt(args[++i]);
+                    if (threads <= 0) throw new IllegalArgumentException("--threads must be positive");
+                    break;
+                case "--decimal":
+                    decimal = true;
+                    break;
+                case "--quiet":
+                    quiet = true;
+                    break;
+                default:
+                    if (a.startsWith("--")) throw new IllegalArgumentException("Unknown option " + a);
+                    files.add(a);
+            }
+        }
+        if (scale != 0 && operand != null) throw new IllegalArgumentException("--scale and --op are exclusive");
+        if (operand != null) right = NumberLists.of(operand, base);
+    }
+
+    private static int parseBase(String s) {
+        int b;
+        try {
+            b = Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad base " + s);
+        }
+        if (!NumberLists.isSupportedBase(b)) throw new IllegalArgumentException("Unsupported base " + b);
+        return b;
+    }
+
+    //  Processing
+
+    private void process(BufferedReader in, Writer out, ForkJoinPool pool) throws IOException {
+        int window = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<ForkJoinTask<String[]>> inFlight = new ArrayDeque<>();
+        while (true) {
+            List<String> batch = readBatch(in);
+            if (batch.isEmpty()) break;
+            inFlight.add(pool.submit(() -> apply(batch)));
+            if (inFlight.size() >= window) write(inFlight.poll().join(), out);
+        }
+        while (!inFlight.isEmpty()) write(inFlight.poll().join(), out);
+    }
+
+    private List<String> readBatch(BufferedReader in) throws IOException {
+        List<String> batch = new ArrayList<>();
+        int chars = 0;
+        String line;
+        while (batch.size() < BATCH_LINES && chars < BATCH_CHARS && (line = in.readLine()) != null) {
+            batch.add(line);
+            chars += line.length();
+        }
+        numbers += batch.size();
+        inputChars += chars;
+        return batch;
+    }
+
+    private String[] apply(List<String> batch) {
+        String[] res = new String[batch.size()];
+        for (int i = 0; i < res.length; i++) {
+            NumberListImpl list = NumberLists.of(batch.get(i), base);
+            if (list.isEmpty()) {
+                res[i] = "";
+                continue;
+            }
+            if (scale == -1) {
+                list = list.changeScale();
+            } else if (scale > 0) {
+                list = list.changeScale(scale);
+            } else if (right != null) {
+                list = list.additionalOperation(right);
+            }
+            res[i] = decimal ? list.toDecimalString() : list.toString();
+        }
+        return res;
+    }
+
+    private static void write(String[] lines, Writer out) throws IOException {
+        for (String s : lines) {
+            out.write(s);
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ua.kpi.comsys.test2.implementation.NumberListProtocol.Frame;
+import ua.kpi.comsys.test2.implementation.NumberListProtocol.Payload;
+
+/**
+ * Client of {@link NumberListServer}.
+ *
+ * Methods send request and return at once with a future, so many requests
+ * are pipelined over one connection; a background thread completes futures
+ * as responses arrive. At most maxInFlight requests are outstanding, further
+ * calls block until a response comes (backpressure towards the caller).
+ *
+ * Futures complete exceptionally with RejectedExecutionException when the
+ * server was busy, IllegalStateException carrying the server error message
+ * when the request failed there, and IOException when the connection broke.
+ * Responses longer than maxFrame (default
+ * {@link NumberListProtocol#DEFAULT_MAX_FRAME}, as on the server) break the
+ * connection instead of being allocated. The client is thread safe.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListClient implements Closeable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+    private final SocketChannel ch;
+    private final Semaphore inFlight;
+    private final Map<Integer, CompletableFuture<Frame>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final int maxFrame;
+    private volatile IOException failure;
+
+    private NumberListClient(SocketChannel ch, int maxInFlight, int maxFrame) {
+        this.ch = ch;
+        this.maxFrame = maxFrame;
+        this.inFlight = new Semaphore(maxInFlight);
+        Thread reader = new Thread(this::readLoop, "numberlist-client-" + ch.hashCode());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to server at InetSocketAddress or UnixDomainSocketAddress.
+     */
+    public static NumberListClient connect(SocketAddress address) throws IOException {
+        return connect(address, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public static NumberListClient connect(SocketAddress address, int maxInFlight) throws IOException {
+        return connect(address, maxInFlight, NumberListProtocol.DEFAULT_MAX_FRAME);
+    }
+
+    /**
+     * Connects with given limit of response frame length, see {@link NumberListProtocol}.
+     */
+    public static NumberListClient connect(SocketAddress address, int maxInFlight, int maxFrame) throws IOException {
+        if (address == null) throw new NullPointerException();
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive");
+        if (maxFrame < NumberListProtocol.HEADER_SIZE) throw new IllegalArgumentException("maxFrame is too small");
+        SocketChannel ch = (address instanceof UnixDomainSocketAddress)
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            ch.connect(address);
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        return new NumberListClient(ch, maxInFlight, maxFrame);
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+
+    //  Operations
+
+    public CompletableFuture<Void> ping() {
+        return send(NumberListProtocol.PING, new Payload()).thenApply(f -> null);
+    }
+
+    /**
+     * Parses decimal into list of given base (invalid decimal gives empty list).
+     */
+    public CompletableFuture<NumberListImpl> parse(String decimal, int base) {
+        if (decimal == null) throw new NullPointerException();
+        return value(NumberListProtocol.PARSE, payload(p -> p.base(base).string(decimal)));
+    }
+
+    public CompletableFuture<String> toDecimalString(NumberListImpl list) {
+        return send(NumberListProtocol.TO_DECIMAL, payload(p -> p.value(list)))
+                .thenApply(f -> decode(f, NumberListProtocol::readString));
+    }
+
+    public CompletableFuture<NumberListImpl> changeScale(NumberListImpl list, int targetBase) {
+        return value(NumberListProtocol.CHANGE_SCALE, payload(p -> p.value(list).base(targetBase)));
+    }
+
+    public CompletableFuture<NumberListImpl> additionalOperation(NumberListImpl left, NumberListImpl right) {
+        return value(NumberListProtocol.ADDITIONAL_OPERATION, payload(p -> p.value(left).value(right)));
+    }
+
+    /**
+     * Saves list in decimal to path relative to the server file root.
+     */
+    public CompletableFuture<Void> save(NumberListImpl list, String path) {
+        return send(NumberListProtocol.SAVE, payload(p -> p.value(list).string(path))).thenApply(f -> null);
+    }
+
+    /**
+     * Loads decimal file at path relative to the server file root into list of given base.
+     */
+    public CompletableFuture<NumberListImpl> load(String path, int base) {
+        return value(NumberListProtocol.LOAD, payload(p -> p.string(path).base(base)));
+    }
+
+    public CompletableFuture<NumberListImpl> sortAscending(NumberListImpl list) {
+        return value(NumberListProtocol.SORT_ASCENDING, payload(p -> p.value(list)));
+    }
+
+    public CompletableFuture<NumberListImpl> sortDescending(NumberListImpl list) {
+        return value(NumberListProtocol.SORT_DESCENDING, payload(p -> p.value(list)));
+    }
+
+    public CompletableFuture<NumberListImpl> shiftLeft(NumberListImpl list) {
+        return value(NumberListProtocol.SHIFT_LEFT, payload(p -> p.value(list)));
+    }
+
+    public CompletableFuture<NumberListImpl> shiftRight(NumberListImpl list) {
+        return value(NumberListProtocol.SHIFT_RIGHT, payload(p -> p.value(list)));
+    }
+
+    public CompletableFuture<NumberListImpl> swap(NumberListImpl list, int index1, int index2) {
+        return value(NumberListProtocol.SWAP, payload(p -> p.value(list).integer(index1).integer(index2)));
+    }
+
+    //  Requests
+
+    private interface Writer {
+        void write(Payload p) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static Payload payload(Writer w) {
+        Payload p = new Payload();
+        try {
+            w.write(p);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        return p;
+    }
+
+    private static <T> T decode(Frame f, Reader<T> reader) {
+        try {
+            return reader.read(f.payloadStream());
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed response", e);
+        }
+    }
+
+    private CompletableFuture<NumberListImpl> value(byte op, Payload p) {
+        return send(op, p).thenApply(f -> decode(f, NumberListProtocol::readValue));
+    }
+
+    private CompletableFuture<Frame> send(byte op, Payload p) {
+        CompletableFuture<Frame> res = new CompletableFuture<>();
+        byte[] bytes = p.bytes();
+        inFlight.acquireUninterruptibly();
+        int id = ids.incrementAndGet();
+        pending.put(id, res);
+        try {
+            if (failure != null) throw failure;
+            synchronized (ch) {
+                NumberListProtocol.writeFrame(ch, id, op, bytes);
+            }
+        } catch (IOException e) {
+            complete(id, null, e);
+        }
+        return res;
+    }
+
+    private void readLoop() {
+        IOException cause = null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+            Frame f;
+            while ((f = NumberListProtocol.readFrame(in, maxFrame)) != null) {
+                complete(f.id, f, null);
+            }
+        } catch (IOException e) {
+            cause = e;
+        }
+        failure = (cause != null) ? cause : new IOException("Connection closed by server");
+        for (Integer id : pending.keySet()) {
+            complete(id, null, failure);
+        }
+    }
+
+    private void complete(int id, Frame f, IOException e) {
+        CompletableFuture<Frame> res = pending.remove(id);
+        if (res == null) return;
+        inFlight.release();
+        if (e != null) {
+            res.completeExceptionally(e);
+        } else if (f.code == NumberListProtocol.OK) {
+            res.complete(f);
+        } else if (f.code == NumberListProtocol.BUSY) {
+            res.completeExceptionally(new RejectedExecutionException("Server is busy"));
+        } else {
+            res.completeExceptionally(new IllegalStateException(decode(f, NumberListProtocol::readString)));
+        }
+    }
+}
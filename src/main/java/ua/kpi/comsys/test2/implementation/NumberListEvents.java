@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events emitted by NumberListImpl.
+ *
+ * Call sites follow the usual JFR pattern: begin(), do the work, then fill
+ * fields and commit() only if shouldCommit(). With recording off (or event
+ * disabled) begin / shouldCommit are intrinsics returning immediately and the
+ * event object is scalar-replaced, so disabled events cost nothing measurable.
+ * Stack traces are not recorded, enabled events stay cheap on hot paths.
+ *
+ * Record with: java -XX:StartFlightRecording:filename=rec.jfr,settings=profile ...
+ * and view with: jfr print --categories NumberList rec.jfr
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class NumberListEvents {
+
+    static final String TO_BIG_INTEGER = "toBigInteger";
+    static final String FROM_BIG_INTEGER = "fromBigInteger";
+    static final String SAVE = "save";
+    static final String LOAD = "load";
+
+    private NumberListEvents() {
+    }
+
+    @Name("ua.kpi.comsys.numberlist.Conversion")
+    @Label("Radix Conversion")
+    @Category("NumberList")
+    @Description("Conversion between list digits and BigInteger")
+    @StackTrace(false)
+    static final class Conversion extends Event {
+        @Label("Direction")
+        String direction;
+
+        @Label("Base")
+        int base;
+
+        @Label("Digits")
+        long digits;
+
+        @Label("Bits")
+        long bits;
+    }
+
+    @Name("ua.kpi.comsys.numberlist.ScaleChange")
+    @Label("Scale Change")
+    @Category("NumberList")
+    @Description("changeScale of a list into another base")
+    @StackTrace(false)
+    static final class ScaleChange extends Event {
+        @Label("Source Base")
+        int sourceBase;
+
+        @Label("Target Base")
+        int targetBase;
+
+        @Label("Digits")
+        long digits;
+
+        @Label("Result Digits")
+        long resultDigits;
+    }
+
+    @Name("ua.kpi.comsys.numberlist.Operation")
+    @Label("Additional Operation")
+    @Category("NumberList")
+    @Description("additionalOperation on two lists")
+    @StackTrace(false)
+    static final class Operation extends Event {
+        @Label("Operation Code")
+        @Description("Record book number mod 7")
+        int opcode;
+
+        @Label("Base")
+        int base;
+
+        @Label("Left Digits")
+        long leftDigits;
+
+        @Label("Right Digits")
+        long rightDigits;
+
+        @Label("Result Digits")
+        long resultDigits;
+    }
+
+    @Name("ua.kpi.comsys.numberlist.FileIO")
+    @Label("File I/O")
+    @Category("NumberList")
+    @Description("Saving / loading a list to / from file")
+    @StackTrace(false)
+    static final class FileIO extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Format")
+        String format;
+
+        @Label("Path")
+        String path;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Base")
+        int base;
+
+        @Label("Digits")
+        long digits;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader for files with many decimal numbers, one number per line.
+ *
+ * The file is split into ranges of about RANGE_SIZE bytes, range borders are
+ * moved to line starts. Ranges are memory-mapped and parsed in parallel on a
+ * ForkJoinPool. Every line gives exactly one NumberListImpl by the same rules
+ * as NumberListImpl(String): the line is trimmed, invalid or negative number
+ * gives empty list. Lines end with "\n" or "\r\n"; the last line may have no
+ * terminator.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListFileLoader {
+
+    static final int RANGE_SIZE = 1 << 20;
+
+    private NumberListFileLoader() {
+    }
+
+    /**
+     * Loads all numbers of the file into a list, in file order.
+     */
+    public static List<NumberListImpl> loadAll(Path file) throws IOException {
+        final List<NumberListImpl> res = new ArrayList<>();
+        forEach(file, ForkJoinPool.commonPool(), new Consumer<NumberListImpl>() {
+            @Override
+            public void accept(NumberListImpl list) {
+                res.add(list);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Parses the file and passes numbers to consumer in file order.
+     * Only a bounded window of ranges is kept in memory at once.
+     */
+    public static void forEach(Path file, Consumer<? super NumberListImpl> consumer) throws IOException {
+        forEach(file, ForkJoinPool.commonPool(), consumer);
+    }
+
+    /**
+     * Same as {@link #forEach(Path, Consumer)}, ranges are parsed on given pool.
+     * Consumer is always called from the calling thread.
+     */
+    public static void forEach(Path file, ForkJoinPool pool, Consumer<? super NumberListImpl> consumer) throws IOException {
+        if (file == null || pool == null || consumer == null) throw new NullPointerException();
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = splitAtLines(ch, RANGE_SIZE);
+            int ranges = bounds.length - 1;
+            int window = Math.max(2, pool.getParallelism() * 2);
+
+            List<ForkJoinTask<List<NumberListImpl>>> inFlight = new ArrayList<>();
+            int next = 0;
+            int done = 0;
+            while (done < ranges) {
+                while (next < ranges && next - done < window) {
+                    inFlight.add(pool.submit(new ParseRange(ch, bounds[next], bounds[next + 1])));
+                    next++;
+                }
+                List<NumberListImpl> parsed;
+                try {
+                    parsed = inFlight.get(done).join();
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                inFlight.set(done, null);
+                done++;
+                for (NumberListImpl list : parsed) {
+                    consumer.accept(list);
+                }
+            }
+        }
+    }
+
+    //  Splitting
+
+    // Returns range borders: bounds[0] == 0, bounds[last] == size, every inner border is a line start
+    static long[] splitAtLines(FileChannel ch, long rangeSize) throws IOException {
+        long size = ch.size();
+        List<Long> res = new ArrayList<>();
+        res.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = rangeSize;
+        while (pos < size) {
+            long lineStart = nextLineStart(ch, pos - 1, size, probe);
+            if (lineStart >= size) break;
+            if (lineStart > res.get(res.size() - 1)) res.add(lineStart);
+            pos = lineStart + rangeSize;
+        }
+        res.add(size);
+        long[] bounds = new long[res.size()];
+        for (int i = 0; i < bounds.length; i++) bounds[i] = res.get(i);
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel ch, long from, long size, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    //  Parsing
+
+    private static final class ParseRange extends RecursiveTask<List<NumberListImpl>> {
+        private final FileChannel ch;
+        private final long start;
+        private final long end;
+
+        ParseRange(FileChannel ch, long start, long end) {
+            this.ch = ch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<NumberListImpl> compute() {
+            List<NumberListImpl> res = new ArrayList<>();
+            if (end <= start) return res;
+            MappedByteBuffer buf;
+            try {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            int base = NumberListImpl.defaultBase();
+            int len = buf.limit();
+            int lineStart = 0;
+            for (int i = 0; i < len; i++) {
+                if (buf.get(i) == '\n') {
+                    addLine(res, buf, lineStart, i, base);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < len) {
+                // last line of the file without terminator
+                addLine(res, buf, lineStart, len, base);
+            }
+            return res;
+        }
+
+        // Parses the line straight from the mapped bytes, one bulk copy into the digit array
+        private static void addLine(List<NumberListImpl> res, ByteBuffer buf, int from, int to, int base) {
+            if (to > from && buf.get(to - 1) == '\r') to--;
+            NumberListImpl list = NumberListImpl.withBase(base);
+            list.initFromDecimal(buf.slice(from, to - from));
+            res.add(list);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Asynchronous load / save of NumberLists in decimal text format.
+ *
+ * Disk I/O goes through AsynchronousFileChannel with pooled direct buffers.
+ * Radix conversion is CPU work and runs on the given executor (common pool
+ * by default). Saving streams the decimal digits through DecimalWriter in
+ * buffer-sized chunks, at most WRITE_AHEAD chunks in flight; the converting
+ * thread waits for the disk only when all of them are pending.
+ *
+ * Semantics follow NumberListImpl(File) and saveList(File): only the first
+ * line is loaded, missing file or invalid number gives empty list. Other I/O
+ * errors complete the future exceptionally.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListIO {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_POOLED_BUFFERS = 32;
+    // Chunks of a save written concurrently
+    private static final int WRITE_AHEAD = 2;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private NumberListIO() {
+    }
+
+    //  Load
+
+    /**
+     * Loads list from file, conversion runs on common pool.
+     */
+    public static CompletableFuture<NumberListImpl> loadAsync(Path path) {
+        return loadAsync(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads list from file, conversion runs on given executor.
+     */
+    public static CompletableFuture<NumberListImpl> loadAsync(Path path, Executor executor) {
+        if (path == null || executor == null) throw new NullPointerException();
+        return readFirstLine(path).thenApplyAsync(line -> {
+            if (line == null) return new NumberListImpl();
+            NumberListImpl res = NumberListImpl.withBase(NumberListImpl.defaultBase());
+            // line is ours, converted in place
+            res.initFromDecimal(line, 0, line.length, true);
+            return res;
+        }, executor);
+    }
+
+    // Completes with null if file does not exist
+    private static CompletableFuture<byte[]> readFirstLine(Path path) {
+        CompletableFuture<byte[]> res = new CompletableFuture<>();
+        if (!Files.isRegularFile(path)) {
+            res.complete(null);
+            return res;
+        }
+        AsynchronousFileChannel ch;
+        try {
+            ch = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            res.completeExceptionally(ex);
+            return res;
+        }
+        new LineReader(ch, acquire(), res).readNext();
+        return res;
+    }
+
+    private static final class LineReader implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel ch;
+        private final CompletableFuture<byte[]> result;
+        private final ByteBuffer buf;
+        private byte[] line = new byte[64];
+        private int length;
+        private long position;
+
+        // Owns buf and ch: both are released by finish() or failed()
+        LineReader(AsynchronousFileChannel ch, ByteBuffer buf, CompletableFuture<byte[]> result) {
+            this.ch = ch;
+            this.buf = buf;
+            this.result = result;
+        }
+
+        void readNext() {
+            buf.clear();
+            try {
+                ch.read(buf, position, null, this);
+            } catch (RuntimeException ex) {
+                failed(ex, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (n < 0) {
+                finish();
+                return;
+            }
+            buf.flip();
+            while (buf.hasRemaining()) {
+                byte b = buf.get();
+                if (b == '\n') {
+                    finish();
+                    return;
+                }
+                if (length == line.length) line = Arrays.copyOf(line, line.length * 2);
+                line[length++] = b;
+            }
+            position += n;
+            readNext();
+        }
+
+        @Override
+        public void failed(Throwable ex, Void attachment) {
+            release(buf);
+            closeQuietly(ch);
+            result.completeExceptionally(ex);
+        }
+
+        private void finish() {
+            release(buf);
+            closeQuietly(ch);
+            result.complete(Arrays.copyOf(line, length));
+        }
+    }
+
+    //  Save
+
+    /**
+     * Saves list into file in decimal, conversion runs on common pool.
+     */
+    public static CompletableFuture<Void> saveAsync(NumberList list, Path path) {
+        return saveAsync(list, path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Saves list into file in decimal, conversion runs on given executor.
+     * Contents of the list are captured when this method is called.
+     */
+    public static CompletableFuture<Void> saveAsync(NumberList list, Path path, Executor executor) {
+        if (list == null || path == null || executor == null) throw new NullPointerException();
+
+        final NumberListImpl snapshot;
+        if (list instanceof NumberListImpl) {
+            snapshot = ((NumberListImpl) list).copy();
+        } else if (list instanceof ConcurrentNumberList) {
+            snapshot = ((ConcurrentNumberList) list).snapshot();
+        } else {
+            snapshot = NumberListImpl.fromBigInteger(NumberListImpl.valueOf(list, NumberListImpl.defaultBase()),
+                    NumberListImpl.defaultBase());
+        }
+
+        CompletableFuture<Void> res = new CompletableFuture<>();
+        executor.execute(() -> {
+            AsynchronousFileChannel ch = null;
+            try {
+                ch = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                ChunkWriter w = new ChunkWriter(ch);
+                try {
+                    DecimalWriter.write(snapshot.toBigInteger(), w);
+                } finally {
+                    w.close();
+                }
+                res.complete(null);
+            } catch (IOException | RuntimeException ex) {
+                res.completeExceptionally(ex);
+            } finally {
+                if (ch != null) closeQuietly(ch);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Channel which copies each write into a pooled buffer and writes it to the
+     * file asynchronously, keeping at most WRITE_AHEAD buffers in flight.
+     * close() waits for pending writes and reports the first failure.
+     * Waits go through ForkJoinPool.managedBlock, so a saving pool thread (the
+     * common pool by default) is compensated instead of idling the pool.
+     */
+    private static final class ChunkWriter implements WritableByteChannel {
+        private final AsynchronousFileChannel ch;
+        private final Semaphore slots = new Semaphore(WRITE_AHEAD);
+        private volatile Throwable error;
+        private long position;
+        private boolean open = true;
+
+        ChunkWriter(AsynchronousFileChannel ch) {
+            this.ch = ch;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            checkError();
+            try {
+                ForkJoinPool.managedBlock(new SlotBlocker(1, true));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            ByteBuffer buf = acquire();
+            int n = Math.min(src.remaining(), buf.capacity());
+            ByteBuffer part = src.slice();
+            part.limit(n);
+            buf.put(part).flip();
+            src.position(src.position() + n);
+            long at = position;
+            position += n;
+            try {
+                ch.write(buf, at, at, new CompletionHandler<Integer, Long>() {
+                    @Override
+                    public void completed(Integer written, Long pos) {
+                        if (buf.hasRemaining()) {
+                            try {
+                                ch.write(buf, pos + written, pos + written, this);
+                            } catch (RuntimeException ex) {
+                                failed(ex, pos);
+                            }
+                            return;
+                        }
+                        done();
+                    }
+
+                    @Override
+                    public void failed(Throwable ex, Long pos) {
+                        if (error == null) error = ex;
+                        done();
+                    }
+
+                    private void done() {
+                        release(buf);
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                release(buf);
+                slots.release();
+                throw new IOException(ex);
+            }
+            return n;
+        }
+
+        private void checkError() throws IOException {
+            Throwable ex = error;
+            if (ex != null) throw (ex instanceof IOException) ? (IOException) ex : new IOException(ex);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!open) return;
+            open = false;
+            try {
+                ForkJoinPool.managedBlock(new SlotBlocker(WRITE_AHEAD, false));
+            } catch (InterruptedException impossible) {
+                throw new InterruptedIOException();
+            }
+            slots.release(WRITE_AHEAD);
+            checkError();
+        }
+
+        // Takes permits of the slots semaphore
+        private final class SlotBlocker implements ForkJoinPool.ManagedBlocker {
+            private final int permits;
+            private final boolean interruptible;
+            private boolean acquired;
+
+            SlotBlocker(int permits, boolean interruptible) {
+                this.permits = permits;
+                this.interruptible = interruptible;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (acquired) return true;
+                if (interruptible) {
+                    slots.acquire(permits);
+                } else {
+                    slots.acquireUninterruptibly(permits);
+                }
+                acquired = true;
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return acquired || (acquired = slots.tryAcquire(permits));
+            }
+        }
+    }
+
+    //  Buffer pool
+
+    private static ByteBuffer acquire() {
+        ByteBuffer b = BUFFERS.poll();
+        if (b == null) return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        POOLED.decrementAndGet();
+        b.clear();
+        return b;
+    }
+
+    private static void release(ByteBuffer b) {
+        if (POOLED.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            BUFFERS.offer(b);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+            // nothing to do
+        }
+    }
+}
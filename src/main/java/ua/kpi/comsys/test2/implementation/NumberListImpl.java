@@ -9,11 +9,23 @@ package ua.kpi.comsys.test2.implementation;
 
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ThreadLocalRandom;
 
 import ua.kpi.comsys.test2.NumberList;
 
@@ -27,7 +39,7 @@ import ua.kpi.comsys.test2.NumberList;
  * C5+1: Вісімкова
  * Операція зі списками: Алгебраїчне та логічне OR двох чисел
  */
-public class NumberListImpl implements NumberList {
+public class NumberListImpl implements NumberList, Comparable<NumberListImpl> {
     //  Record book number
 
     /**
@@ -77,13 +89,37 @@ public class NumberListImpl implements NumberList {
         }
     }
 
+    private static final class CachedHash {
+        final int value;
+        final int modCount;
+
+        CachedHash(int value, int modCount) {
+            this.value = value;
+            this.modCount = modCount;
+        }
+    }
+
     private Node head;
     private Node tail;
     private int size;
     private int modCount;
 
-    // Each instance has its base (digits are 0..base-1)
+    // hashCode of the digits, valid while its modCount == modCount (set() clears it).
+    // One immutable holder, so readers sharing the list never see a half-written cache
+    private CachedHash hash;
+
+    // Canonical instances returned by NumberLists.intern reject all mutations
+    private boolean frozen;
+
+    // Optional incrementally maintained value in another base, see enableLiveScale
+    private LiveScaleView live;
+
+    // Each instance has its base (digits are 0..base-1) and codec specialized for it
     private final int base;
+    private final DigitCodec codec;
+
+    // Buffer size for writeDigits
+    private static final int WRITE_CHUNK = 4096;
 
     //  Constructors
 
@@ -91,7 +127,7 @@ public class NumberListImpl implements NumberList {
      * Default constructor. Returns empty NumberListImpl.
      */
     public NumberListImpl() {
-        this.base = baseFromRecordBook();
+        this(baseFromRecordBook());
         // empty list
     }
 
@@ -100,10 +136,12 @@ public class NumberListImpl implements NumberList {
      * If file does not exist, is empty, or contains invalid decimal => list stays empty.
      */
     public NumberListImpl(File file) {
-        this.base = baseFromRecordBook();
+        this(baseFromRecordBook());
         if (file == null || !file.exists() || !file.isFile()) {
             return;
         }
+        NumberListEvents.FileIO ev = new NumberListEvents.FileIO();
+        ev.begin();
         String line = null;
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             line = br.readLine();
@@ -114,7 +152,16 @@ public class NumberListImpl implements NumberList {
         if (line == null) {
             return;
         }
-        initFromDecimalString(line.trim());
+        initFromDecimalString(line);
+        if (ev.shouldCommit()) {
+            ev.operation = NumberListEvents.LOAD;
+            ev.format = "decimal";
+            ev.path = file.getPath();
+            ev.bytes = file.length();
+            ev.base = base;
+            ev.digits = size;
+            ev.commit();
+        }
     }
 
     /**
@@ -122,16 +169,45 @@ public class NumberListImpl implements NumberList {
      * If invalid decimal string => list stays empty.
      */
     public NumberListImpl(String value) {
-        this.base = baseFromRecordBook();
+        this(baseFromRecordBook());
         if (value == null) {
             return;
         }
-        initFromDecimalString(value.trim());
+        initFromDecimalString(value);
     }
 
     // Private constructor to create list with specific base (for changeScale / results)
     private NumberListImpl(int base) {
         this.base = base;
+        this.codec = DigitCodec.forBase(base);
+    }
+
+    /**
+     * Returns independent copy of this list (same base, same digits).
+     * Linear time, unlike subList(0, size) which goes through get(i).
+     */
+    NumberListImpl copy() {
+        NumberListImpl res = new NumberListImpl(this.base);
+        Node cur = head;
+        while (cur != null) {
+            res.linkLast(cur.value);
+            cur = cur.next;
+        }
+        return res;
+    }
+
+    /**
+     * Returns immutable copy of this list with precomputed hash, for NumberLists.intern.
+     */
+    NumberListImpl frozenCopy() {
+        NumberListImpl res = frozen ? this : copy();
+        res.hashCode();
+        res.frozen = true;
+        return res;
+    }
+
+    boolean isFrozen() {
+        return frozen;
     }
 
     //  File save
@@ -142,16 +218,103 @@ public class NumberListImpl implements NumberList {
      * If file is null or not writable => do nothing.
      */
     public void saveList(File file) {
-        if (file == null) return;
+        saveList(file, false);
+    }
 
-        // Tests use existing files; still handle general case.
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
-            bw.write(toDecimalString());
+    /**
+     * Saves the number stored in the list into specified file in decimal.
+     * Digits are streamed into the file in chunks, full decimal String is never built.
+     *
+     * If atomic is true, number is written to temporary file in the same directory
+     * which then replaces the target, so readers never see partially written file
+     * and failed save keeps the old content.
+     * If file is null or not writable => do nothing.
+     */
+    public void saveList(File file, boolean atomic) {
+        if (file == null) return;
+        try {
+            saveListChecked(file, atomic);
         } catch (IOException ignored) {
             // do nothing
         }
     }
 
+    /**
+     * Same as {@link #saveList(File, boolean)}, but a failed write is reported
+     * instead of ignored (e.g. by the server, which must not answer OK).
+     */
+    void saveListChecked(File file, boolean atomic) throws IOException {
+        NumberListEvents.FileIO ev = new NumberListEvents.FileIO();
+        ev.begin();
+        BigInteger value = toBigInteger();
+        Path target = file.toPath();
+        Path tmp = null;
+        long written = 0;
+        try {
+            if (atomic) tmp = createSibling(target);
+            Path dest = (tmp != null) ? tmp : target;
+            try (FileChannel ch = FileChannel.open(dest, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = DecimalWriter.write(value, ch);
+                if (tmp != null) ch.force(true);
+            }
+            if (tmp != null) {
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                tmp = null;
+            }
+            if (ev.shouldCommit()) {
+                ev.operation = NumberListEvents.SAVE;
+                ev.format = atomic ? "decimal/atomic" : "decimal";
+                ev.path = file.getPath();
+                ev.bytes = written;
+                ev.base = base;
+                ev.digits = size;
+                ev.commit();
+            }
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // best effort cleanup
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates empty temporary file next to target. Unlike Files.createTempFile
+     * (owner-only on POSIX) it gets the default permissions, or the permissions
+     * of the existing target, so replacing the target keeps them.
+     */
+    private static Path createSibling(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        String name = target.getFileName().toString();
+        Path tmp;
+        while (true) {
+            tmp = dir.resolve(name + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.newByteChannel(tmp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW).close();
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // name taken, try another one
+            }
+        }
+        try {
+            if (Files.exists(target)) Files.setPosixFilePermissions(tmp, Files.getPosixFilePermissions(target));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return tmp;
+    }
+
     //  Scale change
 
     /**
@@ -161,13 +324,91 @@ public class NumberListImpl implements NumberList {
      * Does not affect original list.
      */
     public NumberListImpl changeScale() {
-        BigInteger val = toBigInteger();
-        int newBase = nextBaseFromRecordBook();
-        NumberListImpl res = new NumberListImpl(newBase);
-        res.initFromBigInteger(val);
+        return changeScale(nextBaseFromRecordBook());
+    }
+
+    /**
+     * Returns new NumberListImpl representing the same number in given base (2..16).
+     *
+     * Does not affect original list.
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public NumberListImpl changeScale(int targetBase) {
+        if (live != null && live.targetBase() == targetBase) {
+            if (live.isCurrent(modCount)) {
+                NumberListImpl res = withBase(targetBase);
+                res.initFromDigits(live.digits());
+                return res;
+            }
+            NumberListImpl res = convertTo(targetBase);
+            live.reset(res.digitArray(), modCount);
+            return res;
+        }
+        return convertTo(targetBase);
+    }
+
+    private NumberListImpl convertTo(int targetBase) {
+        NumberListImpl res = withBase(targetBase);
+        NumberListResultCache.Key key = null;
+        if (NumberListResultCache.enabled) {
+            key = NumberListResultCache.key(NumberListResultCache.CHANGE_SCALE, targetBase, this, null);
+            NumberListImpl hit = NumberListResultCache.get(key);
+            if (hit != null) return hit;
+        }
+        long t0 = NumberListStats.start();
+        NumberListEvents.ScaleChange ev = new NumberListEvents.ScaleChange();
+        ev.begin();
+        res.initFromBigInteger(toBigInteger());
+        if (ev.shouldCommit()) {
+            ev.sourceBase = base;
+            ev.targetBase = targetBase;
+            ev.digits = size;
+            ev.resultDigits = res.size;
+            ev.commit();
+        }
+        NumberListStats.operation(t0);
+        if (key != null) NumberListResultCache.put(key, res);
         return res;
     }
 
+    /**
+     * Enables live view in the "next" base, see {@link #enableLiveScale(int)}.
+     */
+    public void enableLiveScale() {
+        enableLiveScale(nextBaseFromRecordBook());
+    }
+
+    /**
+     * Keeps value of this list in targetBase up to date for changeScale(targetBase).
+     *
+     * Digits appended at the least significant end (add(Byte), addAll,
+     * add(size(), e)) are folded into the kept value by multiply-and-add passes
+     * when changeScale is called, so repeated changeScale on a growing number
+     * costs about the appended digits times the number length in limbs, not a
+     * full conversion. Any other mutation makes the next changeScale do a full
+     * conversion, which then reseeds the view.
+     *
+     * The view is state of this list like its digits, so interned lists, which
+     * are shared between threads, cannot have one.
+     *
+     * @throws IllegalArgumentException if base is not supported
+     * @throws UnsupportedOperationException if the list is interned
+     */
+    public void enableLiveScale(int targetBase) {
+        checkMutable();
+        live = new LiveScaleView(codec, DigitCodec.forBase(targetBase));
+    }
+
+    public void disableLiveScale() {
+        live = null;
+    }
+
+    // For tests
+    LiveScaleView liveScaleView() {
+        return live;
+    }
+
     //  Additional operation
 
     /**
@@ -181,17 +422,98 @@ public class NumberListImpl implements NumberList {
             return new NumberListImpl(this.base); // empty
         }
 
-        // Convert both operands to BigInteger in decimal value
-        BigInteger a = this.toBigInteger();
-        BigInteger b;
+        NumberListImpl other = (arg instanceof ConcurrentNumberList) ? ((ConcurrentNumberList) arg).snapshot()
+                : (arg instanceof NumberListImpl) ? (NumberListImpl) arg : null;
+        NumberListResultCache.Key key = null;
+        if (NumberListResultCache.enabled && other != null) {
+            key = NumberListResultCache.key(NumberListResultCache.ADDITIONAL_OPERATION,
+                    getRecordBookNumber() % 7, this, other);
+            NumberListImpl hit = NumberListResultCache.get(key);
+            if (hit != null) return hit;
+        }
+
+        long t0 = NumberListStats.start();
+        NumberListEvents.Operation ev = new NumberListEvents.Operation();
+        ev.begin();
 
-        if (arg instanceof NumberListImpl) {
-            b = ((NumberListImpl) arg).toBigInteger();
+        NumberListImpl res = new NumberListImpl(this.base);
+        byte[] digits = null;
+        if (other != null && other.base == base) {
+            digits = applyBitwise(other);
+            if (digits == null) {
+                long[] limbs = applyOnLimbs(other);
+                if (limbs != null) digits = Limbs.unpack(limbs, codec);
+            }
+        }
+        if (digits != null) {
+            res.initFromDigits(digits);
         } else {
-            // Fallback: treat arg as digits in *this.base* (best effort)
-            b = bigIntegerFromDigits(arg, this.base);
+            // Convert both operands to BigInteger
+            BigInteger a = this.toBigInteger();
+            BigInteger b = (other != null) ? other.toBigInteger() : valueOf(arg, this.base);
+            BigInteger r = applyOperation(a, b);
+            if (r != null) {
+                res.initFromBigInteger(r);
+            }
         }
+        if (ev.shouldCommit()) {
+            ev.opcode = getRecordBookNumber() % 7;
+            ev.base = base;
+            ev.leftDigits = size;
+            ev.rightDigits = arg.size();
+            ev.resultDigits = res.size;
+            ev.commit();
+        }
+        NumberListStats.operation(t0);
+        if (key != null) NumberListResultCache.put(key, res);
+        return res;
+    }
+
+    // Quadratic limb algorithms (schoolbook multiply, conversion to binary words) up to this
+    // many limb products, BigInteger (Karatsuba, subquadratic conversion) above
+    private static final long LIMB_QUADRATIC_MAX = 1L << 16;
+
+    // Add, subtract, division by one limb, small multiply and small AND / OR of same-base
+    // operands on packed limbs; null if not applicable
+    private long[] applyOnLimbs(NumberListImpl other) {
+        int op = getRecordBookNumber() % 7;
+        long[] a = Limbs.pack(digitArray(), size, codec);
+        long[] b = Limbs.pack(other.digitArray(), other.size, codec);
+        long radix = Limbs.radix(codec);
+        switch (op) {
+            case 0:
+                return Limbs.add(a, b, radix);
+            case 1:
+                return Limbs.subtract(a, b, radix);
+            case 2:
+                if ((long) a.length * b.length > LIMB_QUADRATIC_MAX) return null;
+                return Limbs.multiply(a, b, radix);
+            case 3:
+            case 4:
+                // division by zero and long divisors go through BigInteger
+                if (b.length != 1) return null;
+                return Limbs.divide(a, b[0], radix)[op - 3];
+            default:
+                long n = Math.max(a.length, b.length);
+                if (n * n > LIMB_QUADRATIC_MAX) return null;
+                long[] x = Limbs.toWords(a, radix);
+                long[] y = Limbs.toWords(b, radix);
+                return Limbs.fromWords(op == 5 ? Limbs.and(x, y) : Limbs.or(x, y), radix);
+        }
+    }
+
+    // AND / OR of same power-of-two base operands digit by digit; null if not applicable
+    private byte[] applyBitwise(NumberListImpl other) {
+        int op = getRecordBookNumber() % 7;
+        if ((op != 5 && op != 6) || Integer.bitCount(base) != 1) return null;
+        return DigitKernels.INSTANCE.bitwiseDigits(digitArray(), other.digitArray(), op == 5);
+    }
 
+    /**
+     * Applies additional operation defined by record book number (mod 7) to two values.
+     * Returns null if result is undefined (division by zero), callers turn it into empty list.
+     */
+    static BigInteger applyOperation(BigInteger a, BigInteger b) {
         int op = getRecordBookNumber() % 7;
         BigInteger r;
 
@@ -207,11 +529,11 @@ public class NumberListImpl implements NumberList {
                 r = a.multiply(b);
                 break;
             case 3: // div (integer)
-                if (b.equals(BigInteger.ZERO)) return new NumberListImpl(this.base);
+                if (b.equals(BigInteger.ZERO)) return null;
                 r = a.divide(b);
                 break;
             case 4: // mod
-                if (b.equals(BigInteger.ZERO)) return new NumberListImpl(this.base);
+                if (b.equals(BigInteger.ZERO)) return null;
                 r = a.mod(b);
                 break;
             case 5: // AND (bitwise)
@@ -223,12 +545,56 @@ public class NumberListImpl implements NumberList {
             default:
                 r = BigInteger.ZERO;
         }
+        return r;
+    }
 
-        NumberListImpl res = new NumberListImpl(this.base);
-        res.initFromBigInteger(r);
+    /**
+     * Returns numeric value of any NumberList. Lists which are not NumberListImpl
+     * are treated as digits in given base (best effort).
+     */
+    static BigInteger valueOf(NumberList list, int base) {
+        if (list instanceof NumberListImpl) {
+            return ((NumberListImpl) list).toBigInteger();
+        }
+        if (list instanceof ConcurrentNumberList) {
+            return ((ConcurrentNumberList) list).snapshot().toBigInteger();
+        }
+        return bigIntegerFromDigits(list, base);
+    }
+
+    /**
+     * Returns new list with given base holding given value (empty if value is null).
+     */
+    static NumberListImpl fromBigInteger(BigInteger value, int base) {
+        NumberListImpl res = new NumberListImpl(base);
+        if (value != null) {
+            res.initFromBigInteger(value);
+        }
         return res;
     }
 
+    /**
+     * Returns new empty list with given base.
+     */
+    static NumberListImpl withBase(int base) {
+        return new NumberListImpl(base);
+    }
+
+    // Appends digit already validated by caller (bulk loaders)
+    void appendDigit(byte d) {
+        linkLast(d);
+    }
+
+    // Base of digits stored in this list
+    int base() {
+        return base;
+    }
+
+    // Base used by public constructors
+    static int defaultBase() {
+        return baseFromRecordBook();
+    }
+
     //  Decimal conversions
 
     /**
@@ -251,6 +617,48 @@ public class NumberListImpl implements NumberList {
         return sb.toString();
     }
 
+    /**
+     * Writes digits of the number in its own base (same text as toString()) to out.
+     * Digits go through small fixed-size buffer, no String of list size is built.
+     */
+    public void writeDigits(Appendable out) throws IOException {
+        if (out == null) throw new NullPointerException();
+        char[] chunk = new char[Math.min(Math.max(size, 1), WRITE_CHUNK)];
+        CharBuffer view = CharBuffer.wrap(chunk);
+        int n = 0;
+        Node cur = head;
+        while (cur != null) {
+            chunk[n++] = digitToChar(cur.value);
+            if (n == chunk.length) {
+                out.append(view, 0, n);
+                n = 0;
+            }
+            cur = cur.next;
+        }
+        if (n > 0) out.append(view, 0, n);
+    }
+
+    /**
+     * Writes digits of the number in its own base as ASCII bytes to channel.
+     * Digits go through small fixed-size buffer, no String of list size is built.
+     */
+    public void writeDigits(WritableByteChannel out) throws IOException {
+        if (out == null) throw new NullPointerException();
+        ByteBuffer buf = ByteBuffer.allocate(Math.min(Math.max(size, 1), WRITE_CHUNK));
+        Node cur = head;
+        while (cur != null) {
+            buf.put((byte) digitToChar(cur.value));
+            if (!buf.hasRemaining()) {
+                buf.flip();
+                while (buf.hasRemaining()) out.write(buf);
+                buf.clear();
+            }
+            cur = cur.next;
+        }
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) return true;
@@ -259,6 +667,10 @@ public class NumberListImpl implements NumberList {
             NumberListImpl other = (NumberListImpl) o;
             if (this.size != other.size) return false;
             if (this.base != other.base) return false;
+            // Different cached hashes mean different digits, no need to walk the chains
+            CachedHash h1 = this.cachedHash();
+            CachedHash h2 = other.cachedHash();
+            if (h1 != null && h2 != null && h1.value != h2.value) return false;
 
             Node a = this.head;
             Node b = other.head;
@@ -286,9 +698,14 @@ public class NumberListImpl implements NumberList {
         return false;
     }
 
+    /**
+     * Returns hash of base and digits. Computed once per modification,
+     * repeated calls on unchanged list (e.g. HashMap lookups) take O(1).
+     */
     @Override
     public int hashCode() {
-        // not required by tests, but keep consistent with equals
+        CachedHash cached = cachedHash();
+        if (cached != null) return cached.value;
         int h = 1;
         h = 31 * h + base;
         Node cur = head;
@@ -296,9 +713,42 @@ public class NumberListImpl implements NumberList {
             h = 31 * h + cur.value;
             cur = cur.next;
         }
+        hash = new CachedHash(h, modCount);
         return h;
     }
 
+    // Reads the cache field once: the holder is immutable, so a racing writer is harmless
+    private CachedHash cachedHash() {
+        CachedHash h = hash;
+        return h != null && h.modCount == modCount ? h : null;
+    }
+
+    /**
+     * Compares numeric values: "012" equals "12", empty list is zero.
+     * For the same base compares significant lengths, then packed limbs
+     * ({@link Limbs#compare}, k digits per step) without conversion; lists
+     * in different bases are compared through BigInteger.
+     * Note: this ordering is inconsistent with equals (leading zeros, bases).
+     */
+    @Override
+    public int compareTo(NumberListImpl other) {
+        if (other == this) return 0;
+        if (other.base != this.base) return this.toBigInteger().compareTo(other.toBigInteger());
+
+        int lenA = this.size - leadingZeros();
+        int lenB = other.size - other.leadingZeros();
+        if (lenA != lenB) return lenA < lenB ? -1 : 1;
+        long[] a = Limbs.pack(digitArray(), size, codec);
+        long[] b = Limbs.pack(other.digitArray(), other.size, codec);
+        return Limbs.compare(a, b);
+    }
+
+    private int leadingZeros() {
+        int n = 0;
+        for (Node cur = head; cur != null && cur.value == 0; cur = cur.next) n++;
+        return n;
+    }
+
     //  List basics
 
     @Override
@@ -438,6 +888,7 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public void clear() {
+        checkMutable();
         Node cur = head;
         while (cur != null) {
             Node next = cur.next;
@@ -462,9 +913,13 @@ public class NumberListImpl implements NumberList {
         requireDigitInBase(element);
         checkElementIndex(index);
 
+        checkMutable();
+
         Node n = node(index);
         byte old = n.value;
         n.value = element;
+        hash = null;
+        if (live != null) live.invalidate();
         return old;
     }
 
@@ -547,6 +1002,7 @@ public class NumberListImpl implements NumberList {
     @Override
     public boolean swap(int index1, int index2) {
         if (index1 < 0 || index2 < 0 || index1 >= size || index2 >= size) return false;
+        checkMutable();
         if (index1 == index2) return true;
         if (index1 > index2) {
             int t = index1; index1 = index2; index2 = t;
@@ -562,6 +1018,7 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public void sortAscending() {
+        checkMutable();
         if (size <= 1) return;
         // Counting sort since digits are small within base
         int[] cnt = new int[base];
@@ -583,6 +1040,7 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public void sortDescending() {
+        checkMutable();
         if (size <= 1) return;
         int[] cnt = new int[base];
         Node cur = head;
@@ -603,6 +1061,7 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public void shiftLeft() {
+        checkMutable();
         if (size <= 1) return;
 
         // move head to tail
@@ -623,6 +1082,7 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public void shiftRight() {
+        checkMutable();
         if (size <= 1) return;
 
         // move tail to head
@@ -644,6 +1104,8 @@ public class NumberListImpl implements NumberList {
     //  Internal linked list ops
 
     private void linkLast(byte e) {
+        checkMutable();
+        if (NumberListStats.enabled) NumberListStats.nodeAllocated();
         Node newNode = new Node(e);
         Node t = tail;
         tail = newNode;
@@ -655,9 +1117,12 @@ public class NumberListImpl implements NumberList {
         }
         size++;
         modCount++;
+        if (live != null) live.appended(e, modCount);
     }
 
     private void linkBefore(byte e, Node succ) {
+        checkMutable();
+        if (NumberListStats.enabled) NumberListStats.nodeAllocated();
         Node pred = succ.prev;
         Node newNode = new Node(e);
         newNode.next = succ;
@@ -673,6 +1138,7 @@ public class NumberListImpl implements NumberList {
     }
 
     private byte unlink(Node x) {
+        checkMutable();
         byte element = x.value;
         Node next = x.next;
         Node prev = x.prev;
@@ -697,6 +1163,9 @@ public class NumberListImpl implements NumberList {
     }
 
     private Node node(int index) {
+        if (NumberListStats.enabled) {
+            NumberListStats.traversal(Math.min(index, size - 1 - index));
+        }
         // choose from head or tail
         if (index < (size >> 1)) {
             Node cur = head;
@@ -711,6 +1180,10 @@ public class NumberListImpl implements NumberList {
 
     //  Index checks
 
+    private void checkMutable() {
+        if (frozen) throw new UnsupportedOperationException("Interned NumberList is immutable");
+    }
+
     private void checkElementIndex(int index) {
         if (!isElementIndex(index)) throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
     }
@@ -739,7 +1212,7 @@ public class NumberListImpl implements NumberList {
 
     private void requireDigitInBase(Byte e) {
         int v = e & 0xFF;
-        if (v < 0 || v >= base) {
+        if (!codec.isDigit(v)) {
             throw new IllegalArgumentException("Digit " + v + " is out of range for base " + base);
         }
     }
@@ -839,7 +1312,10 @@ public class NumberListImpl implements NumberList {
             requireNonNullDigit(e);
             requireDigitInBase(e);
             if (lastReturned == null) throw new IllegalStateException();
+            checkMutable();
             lastReturned.value = e;
+            hash = null;
+            if (live != null) live.invalidate();
         }
 
         @Override
@@ -861,42 +1337,110 @@ public class NumberListImpl implements NumberList {
 
     //  Decimal string parsing / base conversions
 
-    private void initFromDecimalString(String value) {
+    // Package-private for NumberLists factory
+    void initFromDecimalString(String value) {
         // invalid => leave empty
         if (value == null) return;
-        value = value.trim();
-        if (value.isEmpty()) return;
+        initFromDecimal(value, 0, value.length());
+    }
 
-        // no negative allowed, only digits
-        if (value.startsWith("-")) return;
+    /**
+     * Parses decimal from s[from..to) with the rules of NumberListImpl(String):
+     * surrounding whitespace ignored, empty, negative or non-digit input leaves
+     * the list empty. Trimming is done on indices, the only copy is the digit array.
+     */
+    void initFromDecimal(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        if (from == to) return;
+
+        // Chars to digit bytes; non-digits become bytes >= 10 unless char is above 0xFF
+        int n = to - from;
+        byte[] digits = new byte[n];
+        int wide = 0;
+        for (int i = 0; i < n; i++) {
+            char ch = s.charAt(from + i);
+            wide |= ch;
+            digits[i] = (byte) (ch - '0');
+        }
+        if (wide > 0xFF) return;
+        initFromDigitBytes(digits, 0, n);
+    }
 
-        for (int i = 0; i < value.length(); i++) {
-            char ch = value.charAt(i);
-            if (ch < '0' || ch > '9') {
-                // invalid
-                return;
+    /**
+     * Parses decimal from ASCII bytes a[from..to), same rules as
+     * {@link #initFromDecimal(CharSequence, int, int)}. If owned, a is reused
+     * as the digit array, otherwise it is not modified.
+     */
+    void initFromDecimal(byte[] a, int from, int to, boolean owned) {
+        while (from < to && (a[from] & 0xFF) <= ' ') from++;
+        while (to > from && (a[to - 1] & 0xFF) <= ' ') to--;
+        if (from == to) return;
+
+        byte[] digits = owned ? a : new byte[to - from];
+        int off = owned ? from : 0;
+        for (int i = from; i < to; i++) {
+            digits[off + i - from] = (byte) (a[i] - '0');
+        }
+        initFromDigitBytes(digits, off, off + to - from);
+    }
+
+    /**
+     * Parses decimal from remaining bytes of bb; position is not changed.
+     */
+    void initFromDecimal(ByteBuffer bb) {
+        int from = bb.position();
+        int to = bb.limit();
+        if (bb.hasArray()) {
+            initFromDecimal(bb.array(), bb.arrayOffset() + from, bb.arrayOffset() + to, false);
+            return;
+        }
+        // Direct or read-only buffer: one bulk copy, converted in place
+        byte[] a = new byte[to - from];
+        bb.get(from, a);
+        initFromDecimal(a, 0, a.length, true);
+    }
+
+    /**
+     * Parses decimal from the rest of the stream, read into one buffer which
+     * is then converted in place. Stream is not closed.
+     *
+     * The buffer starts at in.available() + 1 bytes, so a file stream is read
+     * without any copy; a stream which does not know its length (available()
+     * is 0) grows the buffer by doubling, copying the input read so far each time.
+     */
+    void initFromDecimal(InputStream in) throws IOException {
+        byte[] buf = new byte[(int) Math.max(8192, Math.min(in.available() + 1L, Integer.MAX_VALUE - 8))];
+        int n = 0;
+        while (true) {
+            if (n == buf.length) {
+                if (n == Integer.MAX_VALUE - 8) throw new IOException("Decimal input too large");
+                buf = Arrays.copyOf(buf, (int) Math.min((long) n * 2, Integer.MAX_VALUE - 8));
             }
+            int r = in.read(buf, n, buf.length - n);
+            if (r < 0) break;
+            n += r;
+        }
+        initFromDecimal(buf, 0, n, true);
+    }
+
+    // Validates decimal digit bytes d[from..to) (negative sign or any other char fails), strips leading zeros
+    private void initFromDigitBytes(byte[] d, int from, int to) {
+        if (DigitKernels.INSTANCE.firstInvalid(d, from, to, 10) >= 0) {
+            // invalid
+            return;
         }
 
         // Normalize leading zeros: keep single zero if all zeros
-        int p = 0;
-        while (p < value.length() && value.charAt(p) == '0') p++;
-        if (p == value.length()) {
+        int p = from;
+        while (p < to && d[p] == 0) p++;
+        if (p == to) {
             // value is 0
             clear();
             add((byte) 0);
             return;
         }
-        if (p > 0) value = value.substring(p);
-
-        BigInteger bi;
-        try {
-            bi = new BigInteger(value, 10);
-        } catch (Exception ex) {
-            return;
-        }
-
-        initFromBigInteger(bi);
+        initFromBigInteger(DigitCodec.forBase(10).fromDigits(d, p, to));
     }
 
     private void initFromBigInteger(BigInteger bi) {
@@ -905,69 +1449,73 @@ public class NumberListImpl implements NumberList {
         if (bi == null || bi.signum() < 0) {
             return;
         }
-        if (bi.equals(BigInteger.ZERO)) {
-            add((byte) 0);
-            return;
+
+        long t0 = NumberListStats.start();
+        NumberListEvents.Conversion ev = new NumberListEvents.Conversion();
+        ev.begin();
+        // digits in this.base, most significant first
+        byte[] digits = codec.toDigits(bi);
+        initFromDigits(digits);
+        if (ev.shouldCommit()) {
+            ev.direction = NumberListEvents.FROM_BIG_INTEGER;
+            ev.base = base;
+            ev.digits = digits.length;
+            ev.bits = bi.bitLength();
+            ev.commit();
         }
+        NumberListStats.conversion(t0, digits.length);
+    }
 
-        // Convert to digits in this.base, most significant first
-        BigInteger b = BigInteger.valueOf(base);
-        // collect remainders into temporary char buffer (reverse)
-        // Use byte array as stack
-        int cap = Math.max(16, bi.bitLength() / 2 + 4);
-        byte[] tmp = new byte[cap];
-        int len = 0;
-
-        BigInteger n = bi;
-        while (n.signum() > 0) {
-            BigInteger[] qr = n.divideAndRemainder(b);
-            int rem = qr[1].intValue();
-            if (len == tmp.length) {
-                // grow
-                byte[] nt = new byte[tmp.length * 2];
-                System.arraycopy(tmp, 0, nt, 0, tmp.length);
-                tmp = nt;
-            }
-            tmp[len++] = (byte) rem;
-            n = qr[0];
+    // Digits most significant first
+    byte[] digitArray() {
+        byte[] digits = new byte[size];
+        int i = 0;
+        for (Node cur = head; cur != null; cur = cur.next) {
+            digits[i++] = cur.value;
         }
+        return digits;
+    }
 
-        // tmp has least significant first, so add reversed to make MSB at index 0
-        for (int i = len - 1; i >= 0; i--) {
-            linkLast(tmp[i]);
+    // Appends digits already validated by caller
+    void initFromDigits(byte[] digits) {
+        for (byte d : digits) {
+            linkLast(d);
         }
     }
 
-    private BigInteger toBigInteger() {
+    BigInteger toBigInteger() {
         if (size == 0) return BigInteger.ZERO;
-        BigInteger n = BigInteger.ZERO;
-        BigInteger b = BigInteger.valueOf(base);
-
-        Node cur = head;
-        while (cur != null) {
-            int digit = cur.value & 0xFF;
-            n = n.multiply(b).add(BigInteger.valueOf(digit));
-            cur = cur.next;
+        long t0 = NumberListStats.start();
+        NumberListEvents.Conversion ev = new NumberListEvents.Conversion();
+        ev.begin();
+        byte[] digits = digitArray();
+        BigInteger res = codec.fromDigits(digits, 0, digits.length);
+        if (ev.shouldCommit()) {
+            ev.direction = NumberListEvents.TO_BIG_INTEGER;
+            ev.base = base;
+            ev.digits = digits.length;
+            ev.bits = res.bitLength();
+            ev.commit();
         }
-        return n;
+        NumberListStats.conversion(t0, digits.length);
+        return res;
     }
 
     private static BigInteger bigIntegerFromDigits(List<Byte> digits, int base) {
         if (digits == null || digits.isEmpty()) return BigInteger.ZERO;
-        BigInteger n = BigInteger.ZERO;
-        BigInteger b = BigInteger.valueOf(base);
+        byte[] arr = new byte[digits.size()];
+        int i = 0;
         for (Byte d : digits) {
             if (d == null) return BigInteger.ZERO;
             int v = d & 0xFF;
             if (v < 0 || v >= base) return BigInteger.ZERO;
-            n = n.multiply(b).add(BigInteger.valueOf(v));
+            if (i == arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+            arr[i++] = (byte) v;
         }
-        return n;
+        return DigitCodec.forBase(base).fromDigits(arr, 0, i);
     }
 
     private char digitToChar(byte d) {
-        int v = d & 0xFF;
-        if (v < 10) return (char) ('0' + v);
-        return (char) ('A' + (v - 10)); // for hex
+        return codec.toChar(d);
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for {@link NumberListServer}: several connections, each
+ * keeping up to pipeline requests outstanding, send changeScale and
+ * additionalOperation on random numbers and measure throughput and latency.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListLoadGenerator {
+
+    private NumberListLoadGenerator() {
+    }
+
+    /**
+     * Throughput and latency of one run.
+     */
+    public static final class Report {
+        public final int requests;
+        public final int busy;
+        public final int failed;
+        public final long elapsedNanos;
+        // Sorted latencies of successful requests, ns
+        private final long[] latencies;
+
+        Report(int requests, int busy, int failed, long elapsedNanos, long[] latencies) {
+            this.requests = requests;
+            this.busy = busy;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        public double throughput() {
+            return requests * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        /**
+         * Returns latency percentile (0..100) in nanoseconds, 0 if nothing succeeded.
+         */
+        public long latency(double percentile) {
+            if (latencies.length == 0) return 0;
+            int i = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(i, latencies.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %.2f s: %.0f req/s, busy %d, failed %d, "
+                            + "latency us p50 %d, p90 %d, p99 %d, max %d",
+                    requests, elapsedNanos / 1e9, throughput(), busy, failed,
+                    latency(50) / 1000, latency(90) / 1000, latency(99) / 1000, latency(100) / 1000);
+        }
+    }
+
+    /**
+     * Runs load against server.
+     *
+     * @param address - server address
+     * @param connections - number of client connections
+     * @param pipeline - outstanding requests per connection
+     * @param requests - requests per connection
+     * @param digits - decimal digits of generated operands
+     */
+    public static Report run(SocketAddress address, int connections, int pipeline, int requests, int digits)
+            throws IOException {
+        if (connections <= 0 || pipeline <= 0 || requests <= 0 || digits <= 0) {
+            throw new IllegalArgumentException("All parameters must be positive");
+        }
+        Random rnd = new Random(digits);
+        NumberListImpl[] operands = new NumberListImpl[16];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = NumberLists.of(randomDecimal(rnd, digits), NumberListImpl.defaultBase());
+        }
+
+        List<NumberListClient> clients = new ArrayList<>();
+        try {
+            for (int c = 0; c < connections; c++) {
+                clients.add(NumberListClient.connect(address, pipeline));
+            }
+            long[] latencies = new long[connections * requests];
+            AtomicInteger done = new AtomicInteger();
+            AtomicInteger busy = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            AtomicInteger slot = new AtomicInteger();
+            List<List<CompletableFuture<?>>> sent = new ArrayList<>();
+
+            long t0 = System.nanoTime();
+            Thread[] senders = new Thread[connections];
+            for (int c = 0; c < connections; c++) {
+                final NumberListClient client = clients.get(c);
+                final int seed = c;
+                final List<CompletableFuture<?>> mine = new ArrayList<>();
+                sent.add(mine);
+                senders[c] = new Thread(() -> {
+                    for (int i = 0; i < requests; i++) {
+                        NumberListImpl a = operands[(seed + i) % operands.length];
+                        NumberListImpl b = operands[(seed * 7 + i * 3 + 1) % operands.length];
+                        final long start = System.nanoTime();
+                        CompletableFuture<NumberListImpl> f = (i & 1) == 0
+                                ? client.changeScale(a, 8)
+                                : client.additionalOperation(a, b);
+                        mine.add(f.whenComplete((r, e) -> {
+                            if (e == null) {
+                                latencies[slot.getAndIncrement()] = System.nanoTime() - start;
+                            } else if (unwrap(e) instanceof RejectedExecutionException) {
+                                busy.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                            done.incrementAndGet();
+                        }));
+                    }
+                }, "numberlist-load-" + c);
+                senders[c].start();
+            }
+            for (Thread t : senders) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted", e);
+                }
+            }
+            for (List<CompletableFuture<?>> mine : sent) {
+                for (CompletableFuture<?> f : mine) {
+                    try {
+                        f.join();
+                    } catch (CompletionException ignored) {
+                        // counted above
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - t0;
+            long[] ok = Arrays.copyOf(latencies, slot.get());
+            Arrays.sort(ok);
+            return new Report(done.get(), busy.get(), failed.get(), elapsed, ok);
+        } finally {
+            for (NumberListClient client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+    }
+
+    private static String randomDecimal(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char) ('1' + rnd.nextInt(9)));
+        for (int i = 1; i < digits; i++) sb.append((char) ('0' + rnd.nextInt(10)));
+        return sb.toString();
+    }
+
+    /**
+     * Usage: NumberListLoadGenerator (tcp PORT | unix SOCKET_PATH) [CONNECTIONS PIPELINE REQUESTS DIGITS]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[0].equals("tcp") || args[0].equals("unix"))) {
+            System.err.println("Usage: NumberListLoadGenerator (tcp PORT | unix SOCKET_PATH)"
+                    + " [CONNECTIONS PIPELINE REQUESTS DIGITS]");
+            System.exit(2);
+        }
+        SocketAddress address = args[0].equals("tcp")
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[1]))
+                : UnixDomainSocketAddress.of(args[1]);
+        int connections = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+        int pipeline = (args.length > 3) ? Integer.parseInt(args[3]) : 32;
+        int requests = (args.length > 4) ? Integer.parseInt(args[4]) : 10000;
+        int digits = (args.length > 5) ? Integer.parseInt(args[5]) : 100;
+        System.out.println(run(address, connections, pipeline, requests, digits));
+    }
+}
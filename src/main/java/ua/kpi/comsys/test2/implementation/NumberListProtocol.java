@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary wire protocol of {@link NumberListServer} and {@link NumberListClient}.
+ *
+ * Every message is one frame (big-endian):
+ * <pre>
+ *     int   length         bytes after this field (5 + payload)
+ *     int   id             request id, echoed in the response
+ *     byte  code           opcode in requests, status in responses
+ *     byte[] payload
+ * </pre>
+ *
+ * Requests are pipelined: a client may send many frames without waiting,
+ * responses come back in completion order and are matched by id.
+ *
+ * Payload fields:
+ * <pre>
+ *     value   byte base, int digitCount, digits packed as in NumberListBinaryFormat
+ *     string  int length, UTF-8 bytes
+ *     int     4 bytes
+ *     base    1 byte
+ * </pre>
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class NumberListProtocol {
+
+    //  Opcodes: request payload -> response payload
+
+    static final byte PING = 0;                 // -> (empty)
+    static final byte PARSE = 1;                // base, string decimal -> value
+    static final byte TO_DECIMAL = 2;           // value -> string
+    static final byte CHANGE_SCALE = 3;         // value, base target -> value
+    static final byte ADDITIONAL_OPERATION = 4; // value, value -> value
+    static final byte SAVE = 5;                 // value, string path -> (empty)
+    static final byte LOAD = 6;                 // string path, base -> value
+    static final byte SORT_ASCENDING = 7;       // value -> value
+    static final byte SORT_DESCENDING = 8;      // value -> value
+    static final byte SHIFT_LEFT = 9;           // value -> value
+    static final byte SHIFT_RIGHT = 10;         // value -> value
+    static final byte SWAP = 11;                // value, int, int -> value
+
+    //  Response status
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;                // payload: string message
+    static final byte BUSY = 2;                 // queue full, request was not executed
+
+    static final int HEADER_SIZE = 9;
+
+    // Default limit of one frame (1 MB). Values are packed at 1..4 bits per digit
+    // and every digit becomes a list node (~24 bytes), so one payload byte can
+    // take up to 8 nodes: a full frame of a binary value is ~200 MB of heap
+    static final int DEFAULT_MAX_FRAME = 1 << 20;
+
+    private NumberListProtocol() {
+    }
+
+    //  Frames
+
+    static final class Frame {
+        final int id;
+        final byte code;
+        final byte[] payload;
+
+        Frame(int id, byte code, byte[] payload) {
+            this.id = id;
+            this.code = code;
+            this.payload = payload;
+        }
+
+        DataInputStream payloadStream() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+    }
+
+    /**
+     * Reads next frame, or returns null on end of stream before a frame.
+     */
+    static Frame readFrame(DataInputStream in, int maxFrame) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < HEADER_SIZE - 4 || length > maxFrame) {
+            throw new StreamCorruptedException("Bad frame length " + length);
+        }
+        int id = in.readInt();
+        byte code = in.readByte();
+        byte[] payload = new byte[length - 5];
+        in.readFully(payload);
+        return new Frame(id, code, payload);
+    }
+
+    /**
+     * Returns value of the length field of a frame with given payload.
+     */
+    static long frameLength(byte[] payload) {
+        return HEADER_SIZE - 4 + (long) payload.length;
+    }
+
+    /**
+     * Writes whole frame; callers serialize writes on the channel.
+     */
+    static void writeFrame(WritableByteChannel ch, int id, byte code, byte[] payload) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buf.putInt((int) frameLength(payload)).putInt(id).put(code).put(payload).flip();
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    /**
+     * Payload builder.
+     */
+    static final class Payload extends DataOutputStream {
+        Payload() {
+            super(new ByteArrayOutputStream());
+        }
+
+        Payload value(NumberListImpl list) throws IOException {
+            writeValue(this, list);
+            return this;
+        }
+
+        Payload string(String s) throws IOException {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(b.length);
+            write(b);
+            return this;
+        }
+
+        Payload base(int base) throws IOException {
+            writeByte(base);
+            return this;
+        }
+
+        Payload integer(int v) throws IOException {
+            writeInt(v);
+            return this;
+        }
+
+        byte[] bytes() {
+            return ((ByteArrayOutputStream) out).toByteArray();
+        }
+    }
+
+    //  Values
+
+    static void writeValue(DataOutputStream out, NumberListImpl list) throws IOException {
+        int base = list.base();
+        int bits = NumberListBinaryFormat.bitsPerDigit(base);
+        int perByte = 8 / bits;
+        byte[] digits = list.digitArray();
+        out.writeByte(base);
+        out.writeInt(digits.length);
+        byte[] packed = new byte[(digits.length + perByte - 1) / perByte];
+        for (int i = 0; i < digits.length; i++) {
+            int shift = 8 - bits * (i % perByte + 1);
+            packed[i / perByte] |= (byte) (digits[i] << shift);
+        }
+        out.write(packed);
+    }
+
+    static NumberListImpl readValue(DataInputStream in) throws IOException {
+        int base = in.readUnsignedByte();
+        if (!NumberLists.isSupportedBase(base)) throw new StreamCorruptedException("Unsupported base " + base);
+        int count = in.readInt();
+        int bits = NumberListBinaryFormat.bitsPerDigit(base);
+        int perByte = 8 / bits;
+        if (count < 0 || (long) count > (long) in.available() * perByte) {
+            throw new StreamCorruptedException("Bad digit count " + count);
+        }
+        byte[] packed = new byte[(count + perByte - 1) / perByte];
+        in.readFully(packed);
+        byte[] digits = new byte[count];
+        int mask = (1 << bits) - 1;
+        for (int i = 0; i < count; i++) {
+            int shift = 8 - bits * (i % perByte + 1);
+            int d = (packed[i / perByte] >> shift) & mask;
+            if (d >= base) throw new StreamCorruptedException("Digit " + d + " out of range for base " + base);
+            digits[i] = (byte) d;
+        }
+        NumberListImpl res = NumberListImpl.withBase(base);
+        res.initFromDigits(digits);
+        return res;
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    // Raw bytes of a string field, for parsing without decoding
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) throw new StreamCorruptedException("Bad string length " + length);
+        byte[] b = new byte[length];
+        in.readFully(b);
+        return b;
+    }
+
+    static int readBase(DataInputStream in) throws IOException {
+        return in.readUnsignedByte();
+    }
+}
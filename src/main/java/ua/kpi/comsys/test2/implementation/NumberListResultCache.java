@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in memoizing cache of additionalOperation and changeScale results.
+ *
+ * Entries are keyed by operation and operand content: base and digits of
+ * each operand plus a 64-bit hash of them. The hash only selects the bucket,
+ * a hit also requires the digits to be equal, so collisions cannot return a
+ * wrong result. Keying costs one pass over the digits, much less than the
+ * conversions it saves.
+ *
+ * The cache is bounded by a byte budget weighted by digit count (operand and
+ * result digits plus fixed overhead per entry, least recently used entries go
+ * first) and optional time to live. Results are stored as digit arrays and
+ * every hit returns a new NumberListImpl, so callers cannot corrupt the cache.
+ *
+ * Disabled by default: {@link #enable(long, Duration)}.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListResultCache {
+
+    static final int ADDITIONAL_OPERATION = 1;
+    static final int CHANGE_SCALE = 2;
+
+    // Map entry, key and value objects, array headers
+    private static final long ENTRY_OVERHEAD = 160;
+
+    static volatile boolean enabled;
+
+    private static final LinkedHashMap<Key, Value> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    private static long budget;
+    private static long ttlNanos;
+    private static long bytes;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final LongAdder EXPIRATIONS = new LongAdder();
+
+    private NumberListResultCache() {
+    }
+
+    //  Configuration
+
+    /**
+     * Enables the cache (or changes its limits).
+     *
+     * @param maxBytes - budget for cached digits and entry overhead
+     * @param ttl - time to live of an entry, null or zero for no expiry
+     */
+    public static void enable(long maxBytes, Duration ttl) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive");
+        if (ttl != null && ttl.isNegative()) throw new IllegalArgumentException("Negative ttl");
+        synchronized (CACHE) {
+            budget = maxBytes;
+            ttlNanos = (ttl == null) ? 0 : ttl.toNanos();
+            evict(budget);
+            enabled = true;
+        }
+    }
+
+    /**
+     * Disables the cache and drops all entries.
+     */
+    public static void disable() {
+        synchronized (CACHE) {
+            enabled = false;
+            CACHE.clear();
+            bytes = 0;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    //  Statistics
+
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    public static long evictions() {
+        return EVICTIONS.sum();
+    }
+
+    public static long expirations() {
+        return EXPIRATIONS.sum();
+    }
+
+    /**
+     * Returns weighted size of cached entries in bytes.
+     */
+    public static long bytes() {
+        synchronized (CACHE) {
+            return bytes;
+        }
+    }
+
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    //  Lookup (called by NumberListImpl)
+
+    /**
+     * Returns key for operation on given operands (right may be null).
+     */
+    static Key key(int kind, int param, NumberListImpl left, NumberListImpl right) {
+        return new Key(kind, param, left.base(), left.digitArray(),
+                right == null ? 0 : right.base(), right == null ? null : right.digitArray());
+    }
+
+    /**
+     * Returns new list holding cached result, or null on miss.
+     */
+    static NumberListImpl get(Key key) {
+        Value v;
+        synchronized (CACHE) {
+            v = CACHE.get(key);
+            if (v != null && v.expires != 0 && System.nanoTime() - v.expires > 0) {
+                CACHE.remove(key);
+                bytes -= v.weight;
+                EXPIRATIONS.increment();
+                v = null;
+            }
+        }
+        if (v == null) {
+            MISSES.increment();
+            return null;
+        }
+        HITS.increment();
+        NumberListImpl res = NumberListImpl.withBase(v.base);
+        res.initFromDigits(v.digits);
+        return res;
+    }
+
+    /**
+     * Stores copy of result for the key.
+     */
+    static void put(Key key, NumberListImpl result) {
+        byte[] digits = result.digitArray();
+        long weight = ENTRY_OVERHEAD + key.left.length + (key.right == null ? 0 : key.right.length) + digits.length;
+        synchronized (CACHE) {
+            if (!enabled || weight > budget) return;
+            long expires = (ttlNanos == 0) ? 0 : (System.nanoTime() + ttlNanos) | 1;
+            Value old = CACHE.put(key, new Value(result.base(), digits, weight, expires));
+            bytes += weight;
+            if (old != null) bytes -= old.weight;
+            evict(budget);
+        }
+    }
+
+    // Caller holds the lock
+    private static void evict(long limit) {
+        Iterator<Map.Entry<Key, Value>> it = CACHE.entrySet().iterator();
+        while (bytes > limit && it.hasNext()) {
+            bytes -= it.next().getValue().weight;
+            it.remove();
+            EVICTIONS.increment();
+        }
+    }
+
+    //  Entries
+
+    static final class Key {
+        private final int kind;
+        private final int param;
+        private final int leftBase;
+        private final byte[] left;
+        private final int rightBase;
+        private final byte[] right;
+        private final long hash;
+
+        Key(int kind, int param, int leftBase, byte[] left, int rightBase, byte[] right) {
+            this.kind = kind;
+            this.param = param;
+            this.leftBase = leftBase;
+            this.left = left;
+            this.rightBase = rightBase;
+            this.right = right;
+            long h = hash64(left, (31L * kind + param) * 31 + leftBase);
+            this.hash = (right == null) ? h : hash64(right, h * 31 + rightBase);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && kind == k.kind && param == k.param
+                    && leftBase == k.leftBase && rightBase == k.rightBase
+                    && Arrays.equals(left, k.left) && Arrays.equals(right, k.right);
+        }
+    }
+
+    private static final class Value {
+        final int base;
+        final byte[] digits;
+        final long weight;
+        final long expires;
+
+        Value(int base, byte[] digits, long weight, long expires) {
+            this.base = base;
+            this.digits = digits;
+            this.weight = weight;
+            this.expires = expires;
+        }
+    }
+
+    //  Hash
+
+    private static final long M = 0x9E3779B97F4A7C15L;
+
+    // 64-bit hash: 8 digits per word, multiply-rotate rounds, murmur3 finalizer
+    static long hash64(byte[] d, long seed) {
+        long h = seed ^ (d.length * M);
+        int i = 0;
+        for (; i + 8 <= d.length; i += 8) {
+            long w = (d[i] & 0xFFL) | (d[i + 1] & 0xFFL) << 8 | (d[i + 2] & 0xFFL) << 16 | (d[i + 3] & 0xFFL) << 24
+                    | (d[i + 4] & 0xFFL) << 32 | (d[i + 5] & 0xFFL) << 40 | (d[i + 6] & 0xFFL) << 48
+                    | (d[i + 7] & 0xFFL) << 56;
+            h = Long.rotateLeft(h ^ (w * M), 31) * 0xC2B2AE3D27D4EB4FL;
+        }
+        for (; i < d.length; i++) {
+            h = Long.rotateLeft(h ^ ((d[i] & 0xFFL) * M), 31) * 0xC2B2AE3D27D4EB4FL;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
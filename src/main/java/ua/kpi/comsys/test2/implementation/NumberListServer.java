@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import ua.kpi.comsys.test2.implementation.NumberListProtocol.Frame;
+import ua.kpi.comsys.test2.implementation.NumberListProtocol.Payload;
+
+/**
+ * Local compute service: parse, changeScale, additionalOperation, save/load
+ * and NumberList extras over TCP or Unix-domain socket, so several processes
+ * can share one JVM doing conversions. See {@link NumberListProtocol} for the
+ * wire format and {@link NumberListClient} for the client.
+ *
+ * Each connection is served by a reader and a writer thread (virtual threads
+ * when the runtime has them, platform threads otherwise). The reader hands
+ * pipelined requests to a fixed pool of worker threads, one per core by
+ * default; workers only put responses into the connection's queue and the
+ * writer sends them, so a client that stops reading blocks its own writer
+ * and never a shared worker.
+ * Backpressure:
+ * <ul>
+ *     <li>a connection has at most maxInFlight requests executing, queued or
+ *     waiting to be written, after that its reader stops reading and the
+ *     socket buffers fill up;</li>
+ *     <li>the worker queue is bounded, a request that does not fit is answered
+ *     with BUSY instead of being executed.</li>
+ * </ul>
+ *
+ * Save and load work with files under the configured root directory only;
+ * without root they are rejected.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListServer implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final Path fileRoot;
+    private final int maxInFlight;
+    private final int maxFrame;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService connections;
+    private final boolean virtualThreads;
+    private final Set<SocketChannel> open = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private NumberListServer(ServerSocketChannel server, Path fileRoot, int workers, int queueCapacity,
+                             int maxInFlight, int maxFrame) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+        this.fileRoot = (fileRoot == null) ? null : fileRoot.toAbsolutePath().normalize();
+        this.maxInFlight = maxInFlight;
+        this.maxFrame = maxFrame;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), daemonThreads("numberlist-worker-"));
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        this.virtualThreads = virtual != null;
+        this.connections = virtualThreads ? virtual : Executors.newCachedThreadPool(daemonThreads("numberlist-connection-"));
+    }
+
+    //  Start / stop
+
+    /**
+     * Starts server with default limits and no file access.
+     *
+     * @param address - InetSocketAddress (port 0 for any free port) or UnixDomainSocketAddress
+     */
+    public static NumberListServer start(SocketAddress address) throws IOException {
+        return start(address, null, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY,
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Starts server.
+     *
+     * @param address - InetSocketAddress (port 0 for any free port) or UnixDomainSocketAddress
+     * @param fileRoot - directory for save / load paths, null to reject them
+     * @param workers - threads executing requests
+     * @param queueCapacity - requests waiting for a worker, more are answered BUSY
+     * @param maxInFlight - requests of one connection executing or waiting to be answered
+     */
+    public static NumberListServer start(SocketAddress address, Path fileRoot, int workers, int queueCapacity,
+                                         int maxInFlight) throws IOException {
+        return start(address, fileRoot, workers, queueCapacity, maxInFlight, NumberListProtocol.DEFAULT_MAX_FRAME);
+    }
+
+    /**
+     * Starts server with given limit of frame length, applied to requests (the
+     * connection is dropped) and to responses (the request is answered with ERROR).
+     *
+     * @param maxFrame - limit of frame length field, see {@link NumberListProtocol}
+     */
+    public static NumberListServer start(SocketAddress address, Path fileRoot, int workers, int queueCapacity,
+                                         int maxInFlight, int maxFrame) throws IOException {
+        if (address == null) throw new NullPointerException();
+        if (workers <= 0 || queueCapacity <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("workers, queueCapacity and maxInFlight must be positive");
+        }
+        if (maxFrame < NumberListProtocol.HEADER_SIZE) throw new IllegalArgumentException("maxFrame is too small");
+        ServerSocketChannel ch = (address instanceof UnixDomainSocketAddress)
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            ch.bind(address);
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        NumberListServer s = new NumberListServer(ch, fileRoot, workers, queueCapacity, maxInFlight, maxFrame);
+        s.connections.execute(s::acceptLoop);
+        return s;
+    }
+
+    /**
+     * Returns bound address (with actual port for port 0).
+     */
+    public SocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Returns true if connections are served by virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops accepting, closes all connections and drops queued requests.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        server.close();
+        for (SocketChannel ch : open) {
+            ch.close();
+        }
+        workers.shutdownNow();
+        connections.shutdownNow();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    //  Statistics
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns number of requests answered BUSY.
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public int connections() {
+        return open.size();
+    }
+
+    //  Connections
+
+    private void acceptLoop() {
+        while (!closed) {
+            SocketChannel ch;
+            try {
+                ch = server.accept();
+            } catch (IOException e) {
+                return; // closed
+            }
+            open.add(ch);
+            try {
+                connections.execute(() -> serve(ch));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(ch);
+            }
+        }
+    }
+
+    // Response waiting for the connection's writer
+    private static final class Response {
+        final int id;
+        final byte status;
+        final byte[] payload;
+
+        Response(int id, byte status, byte[] payload) {
+            this.id = id;
+            this.status = status;
+            this.payload = payload;
+        }
+    }
+
+    // Tells the writer that the reader is done and all responses were written
+    private static final Response END = new Response(0, (byte) 0, null);
+
+    private void serve(SocketChannel ch) {
+        // A permit is held from reading a request until its response is written,
+        // so the queue never has more than maxInFlight responses and add never fails
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ArrayBlockingQueue<Response> responses = new ArrayBlockingQueue<>(maxInFlight + 1);
+        try {
+            connections.execute(() -> writeLoop(ch, responses, inFlight));
+        } catch (RejectedExecutionException e) {
+            open.remove(ch);
+            closeQuietly(ch);
+            return;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+            Frame req;
+            while ((req = NumberListProtocol.readFrame(in, maxFrame)) != null) {
+                inFlight.acquire();
+                requests.increment();
+                final Frame r = req;
+                try {
+                    workers.execute(() -> responses.add(execute(r)));
+                } catch (RejectedExecutionException e) {
+                    rejected.increment();
+                    responses.add(new Response(r.id, NumberListProtocol.BUSY, new byte[0]));
+                }
+            }
+            // Let pipelined requests finish and be written before closing
+            while (!closed && !inFlight.tryAcquire(maxInFlight, 100, TimeUnit.MILLISECONDS)) {
+                // wait
+            }
+        } catch (IOException | InterruptedException e) {
+            // broken or closed connection
+        } finally {
+            responses.add(END);
+            open.remove(ch);
+            closeQuietly(ch);
+        }
+    }
+
+    // Writes responses in completion order; after a write error keeps draining the queue
+    private void writeLoop(SocketChannel ch, ArrayBlockingQueue<Response> responses, Semaphore inFlight) {
+        boolean broken = false;
+        try {
+            while (true) {
+                Response r = responses.take();
+                if (r == END) return;
+                if (!broken) {
+                    try {
+                        NumberListProtocol.writeFrame(ch, r.id, r.status, r.payload);
+                    } catch (IOException e) {
+                        broken = true;
+                        closeQuietly(ch);
+                    }
+                }
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            // server closed
+        }
+    }
+
+    private Response execute(Frame req) {
+        try {
+            byte[] payload = handle(req);
+            // Same limit as for requests, the client would drop the connection
+            if (NumberListProtocol.frameLength(payload) > maxFrame) {
+                throw new IllegalStateException("Response of " + payload.length + " bytes exceeds frame limit " + maxFrame);
+            }
+            return new Response(req.id, NumberListProtocol.OK, payload);
+        } catch (IOException | RuntimeException e) {
+            errors.increment();
+            String msg = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+            byte[] payload;
+            try {
+                payload = new Payload().string(msg).bytes();
+            } catch (IOException impossible) {
+                payload = new byte[0];
+            }
+            return new Response(req.id, NumberListProtocol.ERROR, payload);
+        }
+    }
+
+    //  Requests
+
+    private byte[] handle(Frame req) throws IOException {
+        DataInputStream in = req.payloadStream();
+        Payload out = new Payload();
+        NumberListImpl v;
+        switch (req.code) {
+            case NumberListProtocol.PING:
+                return out.bytes();
+            case NumberListProtocol.PARSE: {
+                int base = NumberListProtocol.readBase(in);
+                if (!NumberLists.isSupportedBase(base)) throw new IllegalArgumentException("Unsupported base " + base);
+                byte[] decimal = NumberListProtocol.readBytes(in);
+                return out.value(NumberLists.of(decimal, 0, decimal.length, base)).bytes();
+            }
+            case NumberListProtocol.TO_DECIMAL:
+                return out.string(NumberListProtocol.readValue(in).toDecimalString()).bytes();
+            case NumberListProtocol.CHANGE_SCALE:
+                v = NumberListProtocol.readValue(in);
+                return out.value(v.changeScale(NumberListProtocol.readBase(in))).bytes();
+            case NumberListProtocol.ADDITIONAL_OPERATION:
+                v = NumberListProtocol.readValue(in);
+                return out.value(v.additionalOperation(NumberListProtocol.readValue(in))).bytes();
+            case NumberListProtocol.SAVE:
+                v = NumberListProtocol.readValue(in);
+                v.saveListChecked(resolve(NumberListProtocol.readString(in)), true);
+                return out.bytes();
+            case NumberListProtocol.LOAD: {
+                File file = resolve(NumberListProtocol.readString(in));
+                int base = NumberListProtocol.readBase(in);
+                if (!NumberLists.isSupportedBase(base)) throw new IllegalArgumentException("Unsupported base " + base);
+                v = new NumberListImpl(file);
+                // Missing or invalid file gives empty list, as the File constructor does
+                if (v.isEmpty()) v = NumberLists.empty(base);
+                return out.value(v.base() == base ? v : v.changeScale(base)).bytes();
+            }
+            case NumberListProtocol.SORT_ASCENDING:
+                v = NumberListProtocol.readValue(in);
+                v.sortAscending();
+                return out.value(v).bytes();
+            case NumberListProtocol.SORT_DESCENDING:
+                v = NumberListProtocol.readValue(in);
+                v.sortDescending();
+                return out.value(v).bytes();
+            case NumberListProtocol.SHIFT_LEFT:
+                v = NumberListProtocol.readValue(in);
+                v.shiftLeft();
+                return out.value(v).bytes();
+            case NumberListProtocol.SHIFT_RIGHT:
+                v = NumberListProtocol.readValue(in);
+                v.shiftRight();
+                return out.value(v).bytes();
+            case NumberListProtocol.SWAP:
+                v = NumberListProtocol.readValue(in);
+                v.swap(in.readInt(), in.readInt());
+                return out.value(v).bytes();
+            default:
+                throw new UnsupportedOperationException("Unknown opcode " + req.code);
+        }
+    }
+
+    private File resolve(String path) {
+        if (fileRoot == null) throw new UnsupportedOperationException("File access is disabled");
+        Path p = fileRoot.resolve(path).normalize();
+        if (!p.startsWith(fileRoot)) throw new IllegalArgumentException("Path is outside of file root: " + path);
+        return p.toFile();
+    }
+
+    //  Threads
+
+    // Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+, null otherwise
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ignored) {
+            // nothing to do
+        }
+    }
+
+    //  Command line
+
+    /**
+     * Runs server until killed.
+     * Usage: NumberListServer (tcp PORT | unix SOCKET_PATH) [FILE_ROOT]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || !(args[0].equals("tcp") || args[0].equals("unix"))) {
+            System.err.println("Usage: NumberListServer (tcp PORT | unix SOCKET_PATH) [FILE_ROOT]");
+            System.exit(2);
+        }
+        SocketAddress address = args[0].equals("tcp")
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[1]))
+                : UnixDomainSocketAddress.of(args[1]);
+        Path root = (args.length > 2) ? Paths.get(args[2]) : null;
+        NumberListServer s = start(address, root, Runtime.getRuntime().availableProcessors(),
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_IN_FLIGHT);
+        System.err.println("NumberListServer listening on " + s.address()
+                + (s.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+        Thread.currentThread().join();
+    }
+}
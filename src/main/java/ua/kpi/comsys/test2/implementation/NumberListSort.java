@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel MSD radix sort of lists of numbers in numeric order.
+ *
+ * Numbers are first ordered by significant length (digits without leading
+ * zeros), then each group of equal length is sorted by digits from the most
+ * significant one, distributing into base buckets per position. Digits are
+ * small (base <= 16), so one counting pass per position replaces comparisons.
+ * Large buckets are sorted as ForkJoin tasks, small ones by insertion sort.
+ * Sort is stable; numbers are not converted to BigInteger.
+ *
+ * Lists of different bases cannot be bucketed by digits and are sorted with
+ * {@link NumberListImpl#compareTo}.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class NumberListSort {
+
+    // Buckets smaller than this are sorted by insertion
+    private static final int INSERTION_MAX = 16;
+
+    // Buckets at least this large are sorted by separate tasks
+    private static final int PARALLEL_MIN = 1 << 13;
+
+    private NumberListSort() {
+    }
+
+    /**
+     * Sorts list in ascending numeric order.
+     */
+    static void sort(List<NumberListImpl> list, boolean parallel) {
+        NumberListImpl[] items = list.toArray(new NumberListImpl[0]);
+        int n = items.length;
+        if (n < 2) return;
+
+        int base = items[0].base();
+        for (NumberListImpl x : items) {
+            if (x.base() != base) {
+                list.sort(null);
+                return;
+            }
+        }
+
+        // Digit arrays and their first significant digit
+        byte[][] keys = new byte[n][];
+        int[] from = new int[n];
+        IntStream range = IntStream.range(0, n);
+        (parallel ? range.parallel() : range).forEach(i -> {
+            byte[] d = items[i].digitArray();
+            int f = 0;
+            while (f < d.length && d[f] == 0) f++;
+            keys[i] = d;
+            from[i] = f;
+        });
+
+        // Order by significant length, stable (index in low bits)
+        long[] byLength = new long[n];
+        for (int i = 0; i < n; i++) {
+            byLength[i] = (long) (keys[i].length - from[i]) << 32 | i;
+        }
+        if (parallel) {
+            Arrays.parallelSort(byLength);
+        } else {
+            Arrays.sort(byLength);
+        }
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = (int) byLength[i];
+
+        Sorter sorter = new Sorter(keys, from, base, new int[n], parallel);
+        RadixTask root = new RadixTask(sorter, idx, byLength);
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(root);
+        } else {
+            root.compute();
+        }
+
+        ListIterator<NumberListImpl> it = list.listIterator();
+        for (int i = 0; i < n; i++) {
+            it.next();
+            it.set(items[idx[i]]);
+        }
+    }
+
+    // Sorts groups of equal significant length
+    private static final class RadixTask extends RecursiveAction {
+        private final Sorter sorter;
+        private final int[] idx;
+        private final long[] byLength;
+
+        RadixTask(Sorter sorter, int[] idx, long[] byLength) {
+            this.sorter = sorter;
+            this.idx = idx;
+            this.byLength = byLength;
+        }
+
+        @Override
+        protected void compute() {
+            int lo = 0;
+            while (lo < idx.length) {
+                int len = (int) (byLength[lo] >>> 32);
+                int hi = lo + 1;
+                while (hi < idx.length && (int) (byLength[hi] >>> 32) == len) hi++;
+                sorter.sort(idx, lo, hi, 0, len);
+                lo = hi;
+            }
+            sorter.join();
+        }
+    }
+
+    // MSD radix sort of idx[lo..hi) by significant digits d..len
+    private static final class Sorter {
+        private final byte[][] keys;
+        private final int[] from;
+        private final int base;
+        private final int[] aux;
+        private final boolean parallel;
+        private final ConcurrentLinkedQueue<RecursiveAction> forked = new ConcurrentLinkedQueue<>();
+
+        Sorter(byte[][] keys, int[] from, int base, int[] aux, boolean parallel) {
+            this.keys = keys;
+            this.from = from;
+            this.base = base;
+            this.aux = aux;
+            this.parallel = parallel;
+        }
+
+        private int digit(int i, int d) {
+            return keys[i][from[i] + d];
+        }
+
+        void sort(int[] idx, int lo, int hi, int d, int len) {
+            int[] count = new int[base + 1];
+            while (d < len) {
+                if (hi - lo <= INSERTION_MAX) {
+                    insertionSort(idx, lo, hi, d, len);
+                    return;
+                }
+                Arrays.fill(count, 0);
+                for (int i = lo; i < hi; i++) count[digit(idx[i], d) + 1]++;
+
+                // All in one bucket: next position, no recursion (long common prefixes)
+                if (count[digit(idx[lo], d) + 1] == hi - lo) {
+                    d++;
+                    continue;
+                }
+
+                for (int b = 0; b < base; b++) count[b + 1] += count[b];
+                int[] pos = count.clone();
+                for (int i = lo; i < hi; i++) aux[lo + pos[digit(idx[i], d)]++] = idx[i];
+                System.arraycopy(aux, lo, idx, lo, hi - lo);
+
+                for (int b = 0; b < base; b++) {
+                    int blo = lo + count[b];
+                    int bhi = lo + count[b + 1];
+                    if (bhi - blo < 2) continue;
+                    if (parallel && bhi - blo >= PARALLEL_MIN) {
+                        fork(idx, blo, bhi, d + 1, len);
+                    } else {
+                        sort(idx, blo, bhi, d + 1, len);
+                    }
+                }
+                return;
+            }
+        }
+
+        private void fork(final int[] idx, final int lo, final int hi, final int d, final int len) {
+            RecursiveAction task = new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    sort(idx, lo, hi, d, len);
+                }
+            };
+            forked.add(task);
+            task.fork();
+        }
+
+        // Waits for forked tasks, including the ones they fork
+        void join() {
+            RecursiveAction task;
+            while ((task = forked.poll()) != null) task.join();
+        }
+
+        private void insertionSort(int[] idx, int lo, int hi, int d, int len) {
+            for (int i = lo + 1; i < hi; i++) {
+                int x = idx[i];
+                int j = i;
+                while (j > lo && compare(idx[j - 1], x, d, len) > 0) {
+                    idx[j] = idx[j - 1];
+                    j--;
+                }
+                idx[j] = x;
+            }
+        }
+
+        private int compare(int a, int b, int d, int len) {
+            for (; d < len; d++) {
+                int x = digit(a, d);
+                int y = digit(b, d);
+                if (x != y) return x - y;
+            }
+            return 0;
+        }
+    }
+}
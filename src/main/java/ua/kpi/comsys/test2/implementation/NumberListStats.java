@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Runtime metrics and memory footprint estimates for NumberList instances.
+ *
+ * Footprint: {@link #retainedBytes(NumberList)} estimates heap retained by a
+ * list (list object plus one node per digit) for the running JVM layout.
+ *
+ * Global metrics: node traversals in index access (lookups, steps walked and
+ * a histogram of steps per lookup), conversions between digits and BigInteger,
+ * additionalOperation / changeScale calls (counts and latency histograms) and
+ * node allocations. Collection is off by default (-Dnumberlist.stats=true or
+ * {@link #setEnabled(boolean)}); when off, each instrumented point costs one
+ * volatile read. Counters are LongAdders, so collection is cheap under contention.
+ * Radix power cache hits / misses / evictions and size are counted by the
+ * cache itself and are always reported.
+ *
+ * {@link #snapshot()} returns an immutable copy which can be queried or
+ * exported as text / map.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberListStats {
+
+    static volatile boolean enabled = Boolean.getBoolean("numberlist.stats");
+
+    private static final LongAdder NODE_LOOKUPS = new LongAdder();
+    private static final LongAdder NODE_STEPS = new LongAdder();
+    private static final Histogram TRAVERSAL_STEPS = new Histogram();
+    private static final LongAdder CONVERSIONS = new LongAdder();
+    private static final LongAdder CONVERSION_DIGITS = new LongAdder();
+    private static final Histogram CONVERSION_NANOS = new Histogram();
+    private static final LongAdder OPERATIONS = new LongAdder();
+    private static final Histogram OPERATION_NANOS = new Histogram();
+    private static final LongAdder NODE_ALLOCATIONS = new LongAdder();
+
+    private NumberListStats() {
+    }
+
+    //  Switch
+
+    /**
+     * Turns collection of global metrics on or off. Already collected values are kept.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zeroes all global metrics.
+     */
+    public static void reset() {
+        NODE_LOOKUPS.reset();
+        NODE_STEPS.reset();
+        TRAVERSAL_STEPS.reset();
+        CONVERSIONS.reset();
+        CONVERSION_DIGITS.reset();
+        CONVERSION_NANOS.reset();
+        OPERATIONS.reset();
+        OPERATION_NANOS.reset();
+        NODE_ALLOCATIONS.reset();
+    }
+
+    //  Recording (called by NumberListImpl)
+
+    static void traversal(int steps) {
+        NODE_LOOKUPS.increment();
+        NODE_STEPS.add(steps);
+        TRAVERSAL_STEPS.record(steps);
+    }
+
+    static void nodeAllocated() {
+        NODE_ALLOCATIONS.increment();
+    }
+
+    // Start time for conversion / operation, 0 if collection is off
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    static void conversion(long startNanos, int digits) {
+        if (startNanos == 0L) return;
+        CONVERSIONS.increment();
+        CONVERSION_DIGITS.add(digits);
+        CONVERSION_NANOS.record(System.nanoTime() - startNanos);
+    }
+
+    static void operation(long startNanos) {
+        if (startNanos == 0L) return;
+        OPERATIONS.increment();
+        OPERATION_NANOS.record(System.nanoTime() - startNanos);
+    }
+
+    //  Footprint
+
+    /**
+     * Returns estimated heap bytes retained by the list: list object(s) plus nodes.
+     * Lists of other types are estimated as ArrayList of boxed Byte (cached boxes).
+     */
+    public static long retainedBytes(NumberList list) {
+        if (list == null) return 0;
+        long nodes = (long) list.size() * Layout.NODE;
+        if (list instanceof NumberListImpl) {
+            return Layout.LIST + nodes;
+        }
+        if (list instanceof ConcurrentNumberList) {
+            return Layout.CONCURRENT + Layout.LIST + nodes;
+        }
+        if (list instanceof JournaledNumberList) {
+            return Layout.JOURNALED + Layout.LIST + nodes;
+        }
+        return Layout.ARRAY_LIST + Layout.align(Layout.ARRAY_HEADER + (long) list.size() * Layout.REF);
+    }
+
+    /**
+     * Returns estimated bytes per digit of NumberListImpl (one node).
+     */
+    public static long bytesPerDigit() {
+        return Layout.NODE;
+    }
+
+    // Object sizes for current JVM (HotSpot layout, 8-byte alignment)
+    private static final class Layout {
+        static final boolean COMPRESSED = compressedOops();
+        static final int HEADER = COMPRESSED ? 12 : 16;
+        static final int REF = COMPRESSED ? 4 : 8;
+        static final int ARRAY_HEADER = COMPRESSED ? 16 : 24;
+
+        // Node: byte value, prev, next
+        static final long NODE = align(HEADER + 1 + 2 * REF);
+        // NumberListImpl, from its declared fields so that new fields are counted
+        static final long LIST = shallow(NumberListImpl.class);
+        // ConcurrentNumberList and its StampedLock
+        static final long CONCURRENT = shallow(ConcurrentNumberList.class) + align(HEADER + 8 + 3 * REF);
+        // JournaledNumberList without journal buffers
+        static final long JOURNALED = shallow(JournaledNumberList.class);
+        // ArrayList: size, modCount, elementData
+        static final long ARRAY_LIST = align(HEADER + 2 * 4 + REF);
+
+        static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+
+        // Header and instance fields of the class and its superclasses, without padding between fields
+        static long shallow(Class<?> c) {
+            long bytes = HEADER;
+            for (; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers())) continue;
+                    Class<?> t = f.getType();
+                    if (!t.isPrimitive()) {
+                        bytes += REF;
+                    } else if (t == long.class || t == double.class) {
+                        bytes += 8;
+                    } else if (t == int.class || t == float.class) {
+                        bytes += 4;
+                    } else if (t == short.class || t == char.class) {
+                        bytes += 2;
+                    } else {
+                        bytes += 1;
+                    }
+                }
+            }
+            return align(bytes);
+        }
+
+        private static boolean compressedOops() {
+            try {
+                HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+                return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+            } catch (RuntimeException | LinkageError ex) {
+                return true;
+            }
+        }
+    }
+
+    //  Snapshot
+
+    /**
+     * Returns immutable copy of current global metrics.
+     */
+    public static Snapshot snapshot() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("node.lookups", NODE_LOOKUPS.sum());
+        counters.put("node.steps", NODE_STEPS.sum());
+        counters.put("node.allocations", NODE_ALLOCATIONS.sum());
+        counters.put("conversion.count", CONVERSIONS.sum());
+        counters.put("conversion.digits", CONVERSION_DIGITS.sum());
+        counters.put("operation.count", OPERATIONS.sum());
+        counters.put("powerCache.hits", RadixPowerCache.HITS.sum());
+        counters.put("powerCache.misses", RadixPowerCache.MISSES.sum());
+        counters.put("powerCache.evictions", RadixPowerCache.EVICTIONS.sum());
+        counters.put("powerCache.bytes", RadixPowerCache.bytes());
+
+        Map<String, HistogramSnapshot> histograms = new LinkedHashMap<>();
+        histograms.put("node.traversalSteps", TRAVERSAL_STEPS.snapshot());
+        histograms.put("conversion.nanos", CONVERSION_NANOS.snapshot());
+        histograms.put("operation.nanos", OPERATION_NANOS.snapshot());
+        return new Snapshot(counters, histograms);
+    }
+
+    /**
+     * Immutable copy of global metrics.
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> counters;
+        private final Map<String, HistogramSnapshot> histograms;
+
+        private Snapshot(Map<String, Long> counters, Map<String, HistogramSnapshot> histograms) {
+            this.counters = Collections.unmodifiableMap(counters);
+            this.histograms = Collections.unmodifiableMap(histograms);
+        }
+
+        public long nodeLookups() {
+            return counters.get("node.lookups");
+        }
+
+        public long nodeSteps() {
+            return counters.get("node.steps");
+        }
+
+        public long nodeAllocations() {
+            return counters.get("node.allocations");
+        }
+
+        public long conversions() {
+            return counters.get("conversion.count");
+        }
+
+        public long conversionDigits() {
+            return counters.get("conversion.digits");
+        }
+
+        public long operations() {
+            return counters.get("operation.count");
+        }
+
+        public long powerCacheHits() {
+            return counters.get("powerCache.hits");
+        }
+
+        public long powerCacheMisses() {
+            return counters.get("powerCache.misses");
+        }
+
+        public long powerCacheEvictions() {
+            return counters.get("powerCache.evictions");
+        }
+
+        /**
+         * Returns estimated bytes held by the radix power cache.
+         */
+        public long powerCacheBytes() {
+            return counters.get("powerCache.bytes");
+        }
+
+        /**
+         * Returns histogram of steps walked per index lookup.
+         */
+        public HistogramSnapshot traversalSteps() {
+            return histograms.get("node.traversalSteps");
+        }
+
+        public HistogramSnapshot conversionNanos() {
+            return histograms.get("conversion.nanos");
+        }
+
+        public HistogramSnapshot operationNanos() {
+            return histograms.get("operation.nanos");
+        }
+
+        /**
+         * Returns flat map of all values: counters as is, histograms as
+         * name.count / .sum / .max / .p50 / .p99.
+         */
+        public Map<String, Long> toMap() {
+            Map<String, Long> res = new LinkedHashMap<>(counters);
+            for (Map.Entry<String, HistogramSnapshot> e : histograms.entrySet()) {
+                HistogramSnapshot h = e.getValue();
+                res.put(e.getKey() + ".count", h.count());
+                res.put(e.getKey() + ".sum", h.sum());
+                res.put(e.getKey() + ".max", h.max());
+                res.put(e.getKey() + ".p50", h.percentile(50));
+                res.put(e.getKey() + ".p99", h.percentile(99));
+            }
+            return res;
+        }
+
+        /**
+         * Returns "name value" lines, one per entry of {@link #toMap()}.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Long> e : toMap().entrySet()) {
+                sb.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    //  Log2 histogram
+
+    // Bucket 0 holds value 0, bucket i holds values in [2^(i-1), 2^i)
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[65];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void record(long value) {
+            if (value < 0) value = 0;
+            buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        void reset() {
+            for (LongAdder b : buckets) b.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        HistogramSnapshot snapshot() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < counts.length; i++) counts[i] = buckets[i].sum();
+            return new HistogramSnapshot(counts, sum.sum(), max.get());
+        }
+    }
+
+    /**
+     * Immutable copy of a log2 histogram. Percentiles are upper bounds of
+     * power-of-two buckets, so they are exact within factor 2.
+     */
+    public static final class HistogramSnapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private HistogramSnapshot(long[] counts, long sum, long max) {
+            long c = 0;
+            for (long x : counts) c += x;
+            this.counts = counts;
+            this.count = c;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Returns upper bound of the bucket holding p-th percentile (0 < p <= 100), capped by max.
+         */
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * p / 100.0);
+            if (rank < 1) rank = 1;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long upper = (i == 0) ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns count of values in bucket i: 0 for i == 0, [2^(i-1), 2^i) otherwise.
+         */
+        public long bucket(int i) {
+            return counts[i];
+        }
+    }
+}
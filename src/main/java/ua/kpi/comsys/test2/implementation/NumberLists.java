@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ua.kpi.comsys.test2.NumberList;
+
+/**
+ * Factory methods for NumberListImpl in any base 2..16, independent of the
+ * base chosen by record book number.
+ *
+ * Every list gets the {@link DigitCodec} of its base, so ternary, octal,
+ * binary, decimal and hex lists can be used side by side.
+ * Use {@link NumberListImpl#changeScale(int)} to convert between bases.
+ * Decimal can also be parsed straight from CharSequence, ASCII byte[] slices,
+ * ByteBuffers and InputStreams without decoding it to String first.
+ *
+ * {@link #numericOrder()} and {@link #sort(List)} order lists by value.
+ * {@link #intern(NumberList)} returns one canonical immutable instance per
+ * value, so duplicates of large numbers can share storage.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+public final class NumberLists {
+
+    private NumberLists() {
+    }
+
+    /**
+     * Returns true if lists in given base can be created.
+     */
+    public static boolean isSupportedBase(int base) {
+        return base >= DigitCodec.MIN_BASE && base <= DigitCodec.MAX_BASE;
+    }
+
+    /**
+     * Returns new empty list with given base.
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public static NumberListImpl empty(int base) {
+        return NumberListImpl.withBase(base);
+    }
+
+    /**
+     * Returns new list holding decimal number in given base.
+     * Invalid decimal (null, negative, not digits) gives empty list, as NumberListImpl(String) does.
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public static NumberListImpl of(String decimal, int base) {
+        NumberListImpl res = NumberListImpl.withBase(base);
+        res.initFromDecimalString(decimal);
+        return res;
+    }
+
+    //  Parsing from buffers
+
+    /**
+     * Returns new list holding decimal number from any CharSequence
+     * (StringBuilder, CharBuffer slice...) in given base.
+     * Invalid decimal gives empty list, as of(String, int).
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public static NumberListImpl of(CharSequence decimal, int base) {
+        NumberListImpl res = NumberListImpl.withBase(base);
+        if (decimal != null) {
+            res.initFromDecimal(decimal, 0, decimal.length());
+        }
+        return res;
+    }
+
+    /**
+     * Returns new list holding decimal number written in ASCII in
+     * ascii[offset..offset + length), in given base. Array is not modified.
+     * Invalid decimal gives empty list, as of(String, int).
+     *
+     * @throws IllegalArgumentException if base is not supported
+     * @throws IndexOutOfBoundsException if slice is out of array bounds
+     */
+    public static NumberListImpl of(byte[] ascii, int offset, int length, int base) {
+        NumberListImpl res = NumberListImpl.withBase(base);
+        if (ascii != null) {
+            if (offset < 0 || length < 0 || offset > ascii.length - length) {
+                throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+                        + ", array length: " + ascii.length);
+            }
+            res.initFromDecimal(ascii, offset, offset + length, false);
+        }
+        return res;
+    }
+
+    /**
+     * Returns new list holding decimal number written in ASCII in remaining
+     * bytes of the buffer, in given base. Buffer position is not changed.
+     * Invalid decimal gives empty list, as of(String, int).
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public static NumberListImpl of(ByteBuffer ascii, int base) {
+        NumberListImpl res = NumberListImpl.withBase(base);
+        if (ascii != null) {
+            res.initFromDecimal(ascii);
+        }
+        return res;
+    }
+
+    /**
+     * Returns new list holding decimal number written in ASCII in the rest
+     * of the stream, in given base. Reads to the end of stream, does not close it.
+     * Invalid decimal gives empty list, as of(String, int).
+     *
+     * @throws IllegalArgumentException if base is not supported
+     */
+    public static NumberListImpl read(InputStream ascii, int base) throws IOException {
+        NumberListImpl res = NumberListImpl.withBase(base);
+        if (ascii != null) {
+            res.initFromDecimal(ascii);
+        }
+        return res;
+    }
+
+    //  Ordering
+
+    /**
+     * Returns comparator by numeric value (leading zeros ignored), see {@link NumberListImpl#compareTo}.
+     */
+    public static Comparator<NumberListImpl> numericOrder() {
+        return Comparator.naturalOrder();
+    }
+
+    /**
+     * Sorts lists in ascending numeric order by parallel MSD radix sort.
+     * Stable; equal numbers keep their order. Lists of different bases are
+     * compared through BigInteger instead.
+     */
+    public static void sort(List<NumberListImpl> lists) {
+        NumberListSort.sort(lists, true);
+    }
+
+    //  Interning
+
+    // Canonical lists by hashCode; equal hashes are chained, entries go away with their list
+    private static final ConcurrentHashMap<Integer, Ref> INTERNED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<NumberListImpl> CLEARED = new ReferenceQueue<>();
+
+    /**
+     * Returns canonical immutable list equal to given one (same base and digits).
+     * Equal lists give the same instance while it is reachable; the table holds
+     * canonical lists weakly, so unused ones are garbage collected.
+     * Mutators of returned list throw UnsupportedOperationException.
+     *
+     * @throws IllegalArgumentException if list is not NumberListImpl or ConcurrentNumberList
+     */
+    public static NumberListImpl intern(NumberList list) {
+        final NumberListImpl value;
+        if (list instanceof NumberListImpl) {
+            value = (NumberListImpl) list;
+        } else if (list instanceof ConcurrentNumberList) {
+            value = ((ConcurrentNumberList) list).snapshot();
+        } else if (list == null) {
+            throw new NullPointerException();
+        } else {
+            throw new IllegalArgumentException("Cannot intern " + list.getClass().getName());
+        }
+        // Only canonical instances are frozen
+        if (value.isFrozen()) return value;
+
+        expungeCleared();
+        final int hash = value.hashCode();
+        final NumberListImpl[] found = new NumberListImpl[1];
+        INTERNED.compute(hash, (k, chain) -> {
+            chain = prune(chain);
+            for (Ref r = chain; r != null; r = r.next) {
+                NumberListImpl c = r.get();
+                if (c != null && c.equals(value)) {
+                    found[0] = c;
+                    return chain;
+                }
+            }
+            found[0] = value.frozenCopy();
+            return new Ref(found[0], hash, chain);
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns number of canonical lists currently held (some may be already unreachable).
+     */
+    static int internedCount() {
+        expungeCleared();
+        int n = 0;
+        for (Ref chain : INTERNED.values()) {
+            for (Ref r = chain; r != null; r = r.next) n++;
+        }
+        return n;
+    }
+
+    private static void expungeCleared() {
+        Ref r;
+        while ((r = (Ref) CLEARED.poll()) != null) {
+            INTERNED.computeIfPresent(r.hash, (k, chain) -> prune(chain));
+        }
+    }
+
+    // Drops cleared references, null if none left. Chains are only touched inside compute
+    private static Ref prune(Ref chain) {
+        while (chain != null && chain.get() == null) chain = chain.next;
+        for (Ref p = chain; p != null; p = p.next) {
+            while (p.next != null && p.next.get() == null) p.next = p.next.next;
+        }
+        return chain;
+    }
+
+    private static final class Ref extends WeakReference<NumberListImpl> {
+        final int hash;
+        Ref next;
+
+        Ref(NumberListImpl list, int hash, Ref next) {
+            super(list, CLEARED);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
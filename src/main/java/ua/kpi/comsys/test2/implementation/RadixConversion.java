@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subquadratic conversions between digit arrays and BigInteger.
+ *
+ * Digits are grouped into chunks of k digits (largest k with base^k fitting
+ * into long), chunks are packed / unpacked by the base's {@link DigitCodec}
+ * with long arithmetic. Above that, numbers are split by powers
+ * base^(k * 2^j): value = high * base^(k * 2^j) + low, so all heavy work is
+ * done by BigInteger multiplication / division, which are Karatsuba /
+ * Toom-Cook / Burnikel-Ziegler for large operands. The powers come from the
+ * shared {@link RadixPowerCache}.
+ * Digit-by-digit Horner scheme used before is quadratic.
+ * {@link Accumulator} and {@link #emit} do the same for digits streamed in
+ * blocks, e.g. from a file, which are never in one array.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class RadixConversion {
+
+    private RadixConversion() {
+    }
+
+    /**
+     * Returns number of base digits which always fit into one long chunk.
+     */
+    static int chunkDigits(int base) {
+        int k = 0;
+        long p = 1;
+        while (p <= Long.MAX_VALUE / base) {
+            p *= base;
+            k++;
+        }
+        return k;
+    }
+
+    // powers.get(j) == base^(k * 2^j) for all j needed to split needChunks chunks
+    private static List<BigInteger> powers(int base, int k, int needChunks) {
+        List<BigInteger> res = new ArrayList<>();
+        res.add(RadixPowerCache.power(base, k));
+        for (int chunks = 2; chunks < needChunks; chunks <<= 1) {
+            res.add(RadixPowerCache.power(base, k << res.size()));
+        }
+        return res;
+    }
+
+    //  Digits -> BigInteger
+
+    /**
+     * Returns value of digits[from..to) in given base, most significant digit first.
+     * Digits are not validated.
+     */
+    static BigInteger fromDigits(byte[] digits, int from, int to, DigitCodec codec) {
+        int len = to - from;
+        if (len <= 0) return BigInteger.ZERO;
+        int k = codec.chunkDigits;
+        int chunks = (len + k - 1) / k;
+        List<BigInteger> pw = powers(codec.base, k, chunks);
+        return fromChunks(digits, from, to, codec, pw);
+    }
+
+    private static BigInteger fromChunks(byte[] digits, int from, int to, DigitCodec codec, List<BigInteger> pw) {
+        int len = to - from;
+        int k = codec.chunkDigits;
+        if (len <= k) {
+            return BigInteger.valueOf(codec.pack(digits, from, to));
+        }
+        // low part: largest k * 2^j digits which is less than len
+        int j = 0;
+        while ((long) k << (j + 1) < len) j++;
+        int lowLen = k << j;
+        BigInteger high = fromChunks(digits, from, to - lowLen, codec, pw);
+        BigInteger low = fromChunks(digits, to - lowLen, to, codec, pw);
+        return high.multiply(pw.get(j)).add(low);
+    }
+
+    //  BigInteger -> digits
+
+    /**
+     * Returns digits of non-negative value in given base, most significant first,
+     * without leading zeros. Zero gives single zero digit.
+     */
+    static byte[] toDigits(BigInteger value, DigitCodec codec) {
+        if (value.signum() < 0) throw new IllegalArgumentException("Non-negative value expected");
+        if (value.signum() == 0) return new byte[] {0};
+
+        int k = codec.chunkDigits;
+        List<BigInteger> pw = new ArrayList<>();
+        pw.add(RadixPowerCache.power(codec.base, k));
+        // smallest J with value < base^(k * 2^J)
+        int top = 0;
+        while (value.compareTo(pw.get(top)) >= 0) {
+            top++;
+            pw.add(RadixPowerCache.power(codec.base, k << top));
+        }
+
+        byte[] out = new byte[k << top];
+        emit(value, top, pw, codec, out, out.length);
+
+        int lead = 0;
+        while (lead < out.length - 1 && out[lead] == 0) lead++;
+        if (lead == 0) return out;
+        byte[] res = new byte[out.length - lead];
+        System.arraycopy(out, lead, res, 0, res.length);
+        return res;
+    }
+
+    // Writes n < base^(k * 2^j) as exactly k * 2^j digits ending at out[end - 1]
+    private static void emit(BigInteger n, int j, List<BigInteger> pw, DigitCodec codec, byte[] out, int end) {
+        int k = codec.chunkDigits;
+        if (j == 0) {
+            codec.unpack(n.longValue(), out, end, k);
+            return;
+        }
+        if (n.signum() == 0) return; // array is already zero-filled
+        BigInteger[] qr = n.divideAndRemainder(pw.get(j - 1));
+        int half = k << (j - 1);
+        emit(qr[0], j - 1, pw, codec, out, end - half);
+        emit(qr[1], j - 1, pw, codec, out, end);
+    }
+
+    //  Digits not held in one array
+
+    // Digits per block fed to Accumulator and written by emit
+    static final int BLOCK_DIGITS = 1 << 16;
+
+    /**
+     * Builds value of a digit sequence given block by block, most significant
+     * first, e.g. read from a file. Blocks of equal length are merged as in a
+     * binary counter, so multiplications are balanced like in fromDigits and
+     * only O(log blocks) partial values are kept besides the result.
+     */
+    static final class Accumulator {
+        private final int base;
+        private final List<BigInteger> values = new ArrayList<>();
+        private final List<Long> lengths = new ArrayList<>();
+
+        Accumulator(int base) {
+            this.base = base;
+        }
+
+        void add(BigInteger block, long digits) {
+            values.add(block);
+            lengths.add(digits);
+            int top = values.size() - 1;
+            while (top > 0 && lengths.get(top).equals(lengths.get(top - 1))) {
+                BigInteger low = values.remove(top);
+                long lowLen = lengths.remove(top);
+                top--;
+                values.set(top, values.get(top).multiply(power(base, lowLen)).add(low));
+                lengths.set(top, lengths.get(top) + lowLen);
+            }
+        }
+
+        BigInteger value() {
+            BigInteger res = BigInteger.ZERO;
+            for (int i = 0; i < values.size(); i++) {
+                res = res.multiply(power(base, lengths.get(i))).add(values.get(i));
+            }
+            return res;
+        }
+    }
+
+    private static BigInteger power(int base, long exponent) {
+        if (exponent > Integer.MAX_VALUE) throw new ArithmeticException("Number too large for BigInteger");
+        return RadixPowerCache.power(base, (int) exponent);
+    }
+
+    interface DigitSink {
+        void digits(byte[] d, int from, int to);
+    }
+
+    /**
+     * Passes digits of non-negative value &lt; base^width to out, exactly width
+     * of them (leading zeros included), most significant first, in blocks of
+     * at most BLOCK_DIGITS, so the digits are never in memory at once.
+     */
+    static void emit(BigInteger value, long width, DigitCodec codec, DigitSink out) {
+        if (width <= BLOCK_DIGITS) {
+            byte[] block = new byte[(int) width];
+            if (value.signum() > 0) {
+                byte[] d = toDigits(value, codec);
+                System.arraycopy(d, 0, block, block.length - d.length, d.length);
+            }
+            out.digits(block, 0, block.length);
+            return;
+        }
+        // low part: largest BLOCK_DIGITS * 2^j digits which is less than width
+        long lowLen = BLOCK_DIGITS;
+        while (lowLen * 2 < width) lowLen *= 2;
+        BigInteger[] qr = value.divideAndRemainder(power(codec.base, lowLen));
+        emit(qr[0], width - lowLen, codec, out);
+        emit(qr[1], lowLen, codec, out);
+    }
+}
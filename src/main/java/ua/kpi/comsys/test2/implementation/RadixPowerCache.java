@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of radix powers base^exponent used by conversions.
+ *
+ * Divide-and-conquer conversions need base^(k * 2^j) (and 10^(256 * 2^j) for
+ * decimal output); for large numbers the top powers cost as much as a big
+ * multiplication, so they are shared between calls and threads.
+ * Even exponents are built lazily by squaring the cached half power.
+ *
+ * Entries are kept in LRU order and evicted while their total size exceeds
+ * the memory budget (-Dnumberlist.powerCache.bytes, 64 MB by default);
+ * a power larger than the whole budget is returned without caching.
+ * Powers are computed outside the lock, so two threads may occasionally
+ * compute the same power, never block each other for a whole multiplication.
+ * Hits, misses and evictions are counted, see {@link NumberListStats}.
+ *
+ * Author: Zahvatkin Daniil, IO-36 №6
+ */
+final class RadixPowerCache {
+
+    static final long DEFAULT_BUDGET = 64L << 20;
+
+    // Approximate per-entry overhead: map entry, Long key, BigInteger and its int[] header
+    private static final long ENTRY_OVERHEAD = 128;
+
+    // Below this exponent BigInteger.pow is cheap enough, no half power lookup
+    private static final int SQUARE_FROM = 64;
+
+    private static final LinkedHashMap<Long, BigInteger> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    private static long budget = Long.getLong("numberlist.powerCache.bytes", DEFAULT_BUDGET);
+    private static long bytes;
+
+    static final LongAdder HITS = new LongAdder();
+    static final LongAdder MISSES = new LongAdder();
+    static final LongAdder EVICTIONS = new LongAdder();
+
+    private RadixPowerCache() {
+    }
+
+    /**
+     * Returns base^exponent for base >= 2 and exponent >= 0.
+     */
+    static BigInteger power(int base, int exponent) {
+        if (base < 2 || exponent < 0) throw new IllegalArgumentException("base " + base + ", exponent " + exponent);
+        if (exponent == 0) return BigInteger.ONE;
+
+        Long key = ((long) base << 32) | exponent;
+        BigInteger p;
+        synchronized (CACHE) {
+            p = CACHE.get(key);
+        }
+        if (p != null) {
+            HITS.increment();
+            return p;
+        }
+        MISSES.increment();
+
+        if (exponent >= SQUARE_FROM && (exponent & 1) == 0) {
+            BigInteger half = power(base, exponent >>> 1);
+            p = half.multiply(half);
+        } else {
+            p = BigInteger.valueOf(base).pow(exponent);
+        }
+        put(key, p);
+        return p;
+    }
+
+    private static void put(Long key, BigInteger p) {
+        long size = sizeOf(p);
+        synchronized (CACHE) {
+            if (size > budget) return;
+            BigInteger old = CACHE.put(key, p);
+            bytes += size;
+            if (old != null) bytes -= sizeOf(old);
+            evict(budget);
+        }
+    }
+
+    private static long sizeOf(BigInteger p) {
+        return (p.bitLength() >>> 3) + ENTRY_OVERHEAD;
+    }
+
+    // Caller holds the lock
+    private static void evict(long limit) {
+        Iterator<Map.Entry<Long, BigInteger>> it = CACHE.entrySet().iterator();
+        while (bytes > limit && it.hasNext()) {
+            bytes -= sizeOf(it.next().getValue());
+            it.remove();
+            EVICTIONS.increment();
+        }
+    }
+
+    //  Management
+
+    /**
+     * Sets memory budget in bytes, evicting least recently used powers if needed.
+     */
+    static void setBudget(long newBudget) {
+        if (newBudget < 0) throw new IllegalArgumentException("Negative budget");
+        synchronized (CACHE) {
+            budget = newBudget;
+            evict(budget);
+        }
+    }
+
+    static long budget() {
+        synchronized (CACHE) {
+            return budget;
+        }
+    }
+
+    /**
+     * Returns estimated bytes held by cached powers.
+     */
+    static long bytes() {
+        synchronized (CACHE) {
+            return bytes;
+        }
+    }
+
+    static int entries() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Drops all cached powers (counters are kept).
+     */
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            bytes = 0;
+        }
+    }
+}
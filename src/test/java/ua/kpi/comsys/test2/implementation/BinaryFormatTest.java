@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryFormatTest {
+
+    Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("numberlist", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random rnd = new Random(11);
+        StringBuilder sb = new StringBuilder("1");
+        for (int i = 0; i < 3001; i++) sb.append(rnd.nextInt(10));
+
+        NumberListImpl list = new NumberListImpl(sb.toString());
+        NumberListBinaryFormat.write(list, file);
+        NumberListImpl restored = NumberListBinaryFormat.read(file);
+
+        assertEquals(list, restored);
+        assertEquals(sb.toString(), restored.toDecimalString());
+    }
+
+    @Test
+    public void testOtherBaseAndEmpty() throws IOException {
+        NumberListImpl octal = new NumberListImpl("1212144468782345613").changeScale();
+        NumberListBinaryFormat.write(octal, file);
+        assertEquals(octal, NumberListBinaryFormat.read(file));
+
+        NumberListImpl empty = new NumberListImpl();
+        NumberListBinaryFormat.write(empty, file);
+        assertTrue(NumberListBinaryFormat.read(file).isEmpty());
+    }
+
+    @Test
+    public void testCorruptionDetected() throws IOException {
+        NumberListBinaryFormat.write(new NumberListImpl("79483758967495604375647803561675463655464562565"), file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(NumberListBinaryFormat.HEADER_SIZE + 2);
+            int b = raf.read();
+            raf.seek(NumberListBinaryFormat.HEADER_SIZE + 2);
+            raf.write(b ^ 0x10);
+        }
+        try {
+            NumberListBinaryFormat.read(file);
+            fail("Corrupted file was accepted");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecimalTextRejected() throws IOException {
+        new NumberListImpl("12345678901234567890").saveList(file.toFile());
+        NumberListBinaryFormat.read(file);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentNumberListTest {
+
+    @Test
+    public void testBehavesLikeNumberListImpl() {
+        String value = "79483758967495604375647803561675463655464562565464565654634156134636";
+        NumberListImpl plain = new NumberListImpl(value);
+        ConcurrentNumberList list = new ConcurrentNumberList(value);
+
+        assertEquals(plain.size(), list.size());
+        assertEquals(value, list.toDecimalString());
+        assertEquals(plain.toString(), list.toString());
+        assertEquals(plain.changeScale(), list.changeScale());
+        assertTrue("Lists with same digits should be equal", list.equals(plain));
+
+        plain.sortAscending();
+        list.sortAscending();
+        plain.shiftLeft();
+        list.shiftLeft();
+        plain.swap(0, 5);
+        list.swap(0, 5);
+        assertEquals(plain.toString(), list.toString());
+    }
+
+    @Test
+    public void testAdditionalOperationWithConcurrentArgument() {
+        ConcurrentNumberList a = new ConcurrentNumberList("15");
+        ConcurrentNumberList b = new ConcurrentNumberList("2");
+
+        NumberListImpl expected = new NumberListImpl("15").additionalOperation(new NumberListImpl("2"));
+        assertEquals(expected, a.additionalOperation(b));
+        // argument may be the list itself
+        assertEquals(new NumberListImpl("15").additionalOperation(new NumberListImpl("15")),
+                a.additionalOperation(a));
+    }
+
+    @Test
+    public void testSelfCollectionArgumentDoesNotDeadlock() {
+        ConcurrentNumberList list = new ConcurrentNumberList("14");
+        int size = list.size();
+        assertTrue(list.containsAll(list));
+        list.addAll(list);
+        assertEquals(2 * size, list.size());
+    }
+
+    @Test
+    public void testIteratorIsSnapshot() {
+        ConcurrentNumberList list = new ConcurrentNumberList("227");
+        int size = list.size();
+        Iterator<Byte> it = list.iterator();
+        list.add((byte) 1);
+
+        int seen = 0;
+        while (it.hasNext()) {
+            it.next();
+            seen++;
+        }
+        assertEquals(size, seen);
+    }
+
+    @Test
+    public void testConcurrentAppendsAndReads() throws InterruptedException {
+        final ConcurrentNumberList list = new ConcurrentNumberList();
+        final int perThread = 2000;
+        List<Thread> threads = new ArrayList<>();
+        final boolean[] failed = new boolean[1];
+
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    list.add((byte) (i % 3));
+                }
+            }));
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int s = list.size();
+                    if (s > 0) {
+                        byte v = list.get(s - 1);
+                        if (v < 0 || v > 2) failed[0] = true;
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+
+        assertFalse("Reader observed invalid digit", failed[0]);
+        assertEquals(4 * perThread, list.size());
+    }
+
+    @Test
+    public void testConcurrentEqualsAndHashCode() throws InterruptedException {
+        final String value = ScalingFixtures.decimal(300);
+        final ConcurrentNumberList a = new ConcurrentNumberList(value);
+        final ConcurrentNumberList b = new ConcurrentNumberList(value);
+        final int expected = new NumberListImpl(value).hashCode();
+        List<Thread> threads = new ArrayList<>();
+        final boolean[] failed = new boolean[1];
+
+        // Rewriting a digit with itself drops the cached hash, readers recompute it together
+        threads.add(new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                int at = i % a.size();
+                a.set(at, a.get(at));
+            }
+        }));
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    if (a.hashCode() != expected || !a.equals(b) || !b.equals(a)) failed[0] = true;
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+
+        assertFalse("Reader observed wrong hash or inequality", failed[0]);
+    }
+}
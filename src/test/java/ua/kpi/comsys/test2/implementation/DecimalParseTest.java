@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DecimalParseTest {
+
+    private static final String[] INPUTS = {
+            "0", "000", "7", "  42\t", "\n0012\r\n", ScalingFixtures.decimal(3000),
+            "", "   ", "-5", "+5", "12a", "1 2", "1.0", "١٢", "12" + (char) ('0' + 256), "9 ",
+    };
+
+    private static void assertSameAsString(String input, int base) throws IOException {
+        NumberListImpl expected = NumberLists.of(input, base);
+        String msg = "\"" + input + "\" base " + base;
+
+        assertEquals(msg, expected, NumberLists.of(new StringBuilder(input), base));
+        assertEquals(msg, expected, NumberLists.of(CharBuffer.wrap("[" + input + "]", 1, input.length() + 1), base));
+
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        byte[] before = padded.clone();
+        assertEquals(msg, expected, NumberLists.of(padded, 3, bytes.length, base));
+        assertArrayEquals(before, padded);
+
+        ByteBuffer heap = ByteBuffer.wrap(padded, 3, bytes.length).slice();
+        assertEquals(msg, expected, NumberLists.of(heap, base));
+        assertEquals(0, heap.position());
+        assertEquals(msg, expected, NumberLists.of(heap.asReadOnlyBuffer(), base));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+        direct.put((byte) 'x').put(bytes).flip().position(1);
+        assertEquals(msg, expected, NumberLists.of(direct, base));
+        assertEquals(1, direct.position());
+
+        assertEquals(msg, expected, NumberLists.read(new ByteArrayInputStream(bytes), base));
+    }
+
+    @Test
+    public void testSameSemanticsAsString() throws IOException {
+        for (String input : INPUTS) {
+            assertSameAsString(input, 10);
+            assertSameAsString(input, 3);
+            assertSameAsString(input, 16);
+        }
+    }
+
+    @Test
+    public void testNullAndBounds() throws IOException {
+        assertTrue(NumberLists.of((CharSequence) null, 3).isEmpty());
+        assertTrue(NumberLists.of((byte[]) null, 0, 0, 3).isEmpty());
+        assertTrue(NumberLists.of((ByteBuffer) null, 3).isEmpty());
+        assertTrue(NumberLists.read(null, 3).isEmpty());
+        try {
+            NumberLists.of(new byte[4], 2, 3, 3);
+            throw new AssertionError("slice out of bounds accepted");
+        } catch (IndexOutOfBoundsException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testLargeStream() throws IOException {
+        String big = ScalingFixtures.decimal(100000);
+        byte[] bytes = (big + "\n").getBytes(StandardCharsets.US_ASCII);
+        NumberListImpl list = NumberLists.read(new ByteArrayInputStream(bytes), 10);
+        assertEquals(big, list.toString());
+
+        // length unknown up front: the buffer grows while reading
+        InputStream unknown = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+        assertEquals(big, NumberLists.read(unknown, 10).toString());
+    }
+}
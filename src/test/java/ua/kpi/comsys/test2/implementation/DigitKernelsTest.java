@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DigitKernelsTest {
+
+    private static final DigitKernels S = DigitKernels.SCALAR;
+    private static final DigitKernels V = DigitKernels.SWAR;
+
+    private static byte[] random(Random rnd, int n, int base) {
+        byte[] a = new byte[n];
+        for (int i = 0; i < n; i++) a[i] = (byte) rnd.nextInt(base);
+        return a;
+    }
+
+    @Test
+    public void testSelect() {
+        assertSame(S, DigitKernels.select("scalar"));
+        assertSame(V, DigitKernels.select(null));
+    }
+
+    @Test
+    public void testFirstInvalid() {
+        Random rnd = new Random(1);
+        for (int base = 2; base <= 16; base++) {
+            for (int n = 0; n < 40; n++) {
+                byte[] a = random(rnd, n, base);
+                assertEquals(-1, V.firstInvalid(a, 0, n, base));
+                if (n == 0) continue;
+                int at = rnd.nextInt(n);
+                a[at] = (byte) (base + rnd.nextInt(256 - base));
+                assertEquals(S.firstInvalid(a, 0, n, base), V.firstInvalid(a, 0, n, base));
+                assertEquals(S.firstInvalid(a, at / 2, n, base), V.firstInvalid(a, at / 2, n, base));
+            }
+        }
+    }
+
+    @Test
+    public void testCount() {
+        Random rnd = new Random(2);
+        for (int base = 2; base <= 16; base++) {
+            for (int n = 0; n < 70; n += 3) {
+                byte[] a = random(rnd, n, base);
+                long[] expected = new long[base];
+                long[] actual = new long[base];
+                S.count(a, 1 % (n + 1), n, expected);
+                V.count(a, 1 % (n + 1), n, actual);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOf() {
+        Random rnd = new Random(3);
+        for (int n = 0; n < 50; n++) {
+            byte[] a = random(rnd, n, 16);
+            for (int v = 0; v < 17; v++) {
+                assertEquals(S.indexOf(a, 0, n, (byte) v), V.indexOf(a, 0, n, (byte) v));
+                assertEquals(S.indexOf(a, n / 3, n, (byte) v), V.indexOf(a, n / 3, n, (byte) v));
+            }
+        }
+    }
+
+    @Test
+    public void testBitwiseDigits() {
+        Random rnd = new Random(4);
+        for (int base : new int[] {2, 4, 8, 16}) {
+            DigitCodec codec = DigitCodec.forBase(base);
+            for (int i = 0; i < 100; i++) {
+                byte[] a = random(rnd, rnd.nextInt(40), base);
+                byte[] b = random(rnd, rnd.nextInt(40), base);
+                BigInteger x = codec.fromDigits(a, 0, a.length);
+                BigInteger y = codec.fromDigits(b, 0, b.length);
+                for (DigitKernels k : new DigitKernels[] {S, V}) {
+                    assertArrayEquals(codec.toDigits(x.or(y)), k.bitwiseDigits(a, b, false));
+                    assertArrayEquals(codec.toDigits(x.and(y)), k.bitwiseDigits(a, b, true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecimalValidation() {
+        assertEquals("123", NumberLists.of("000123", 10).toString());
+        assertEquals("0", NumberLists.of("0000", 10).toString());
+        assertEquals(0, NumberLists.of("12345678901234ı", 10).size());
+        assertEquals(0, NumberLists.of("1234567890/1234", 10).size());
+        assertEquals(0, NumberLists.of("1234567890:1234", 10).size());
+        // '0' + 256 maps to digit 0 as a byte, must still be rejected
+        assertEquals(0, NumberLists.of("12" + (char) ('0' + 256), 10).size());
+    }
+}
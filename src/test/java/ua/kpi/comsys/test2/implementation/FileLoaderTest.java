@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileLoaderTest {
+
+    Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("numbers", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testLineRules() throws IOException {
+        Files.write(file, "14\r\n-4\n\n 227 \n12a3\n1".getBytes(StandardCharsets.US_ASCII));
+
+        List<NumberListImpl> lists = NumberListFileLoader.loadAll(file);
+
+        assertEquals(6, lists.size());
+        assertEquals(new NumberListImpl("14"), lists.get(0));
+        assertTrue("Negative number should give empty list", lists.get(1).isEmpty());
+        assertTrue("Blank line should give empty list", lists.get(2).isEmpty());
+        assertEquals(new NumberListImpl("227"), lists.get(3));
+        assertTrue("Invalid number should give empty list", lists.get(4).isEmpty());
+        assertEquals(new NumberListImpl("1"), lists.get(5));
+    }
+
+    @Test
+    public void testManyRangesKeepOrder() throws IOException {
+        Random rnd = new Random(5);
+        List<String> values = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 3 * NumberListFileLoader.RANGE_SIZE) {
+            String v = Long.toString(Math.abs(rnd.nextLong() % 1000000000000L));
+            values.add(v);
+            sb.append(v).append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+
+        final List<NumberListImpl> lists = new ArrayList<>();
+        NumberListFileLoader.forEach(file, lists::add);
+
+        assertEquals(values.size(), lists.size());
+        for (int i = 0; i < values.size(); i += 997) {
+            assertEquals("Wrong number at line " + i, values.get(i), lists.get(i).toDecimalString());
+        }
+        assertEquals(values.get(values.size() - 1), lists.get(lists.size() - 1).toDecimalString());
+    }
+
+    @Test
+    public void testSplitAtLineStarts() throws IOException {
+        byte[] data = "1\n22\n333\n4444\n55555\n".getBytes(StandardCharsets.US_ASCII);
+        Files.write(file, data);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = NumberListFileLoader.splitAtLines(ch, 3);
+            assertEquals(0L, bounds[0]);
+            assertEquals(data.length, bounds[bounds.length - 1]);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                assertEquals("Border is not a line start", '\n', data[(int) bounds[i] - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        assertTrue(NumberListFileLoader.loadAll(file).isEmpty());
+    }
+}
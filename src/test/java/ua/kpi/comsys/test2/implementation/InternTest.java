@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InternTest {
+
+    private static final String BIG = ScalingFixtures.decimal(5000);
+
+    private static int plainHash(NumberListImpl list) {
+        int h = 31 + list.base();
+        for (byte d : list.digitArray()) h = 31 * h + d;
+        return h;
+    }
+
+    @Test
+    public void testHashCodeFollowsMutations() {
+        NumberListImpl list = NumberLists.of(BIG, 8);
+        assertEquals(plainHash(list), list.hashCode());
+        assertEquals(list.hashCode(), list.hashCode());
+
+        list.set(0, (byte) ((list.get(0) + 1) % 8));
+        assertEquals(plainHash(list), list.hashCode());
+
+        ListIterator<Byte> it = list.listIterator(list.size() - 1);
+        it.next();
+        it.set((byte) ((list.get(list.size() - 1) + 1) % 8));
+        assertEquals(plainHash(list), list.hashCode());
+
+        list.add((byte) 7);
+        assertEquals(plainHash(list), list.hashCode());
+        list.remove(list.size() - 1);
+        list.shiftLeft();
+        assertEquals(plainHash(list), list.hashCode());
+        list.sortAscending();
+        assertEquals(plainHash(list), list.hashCode());
+        list.clear();
+        assertEquals(plainHash(list), list.hashCode());
+    }
+
+    @Test
+    public void testEqualsWithCachedHashes() {
+        NumberListImpl a = NumberLists.of(BIG, 8);
+        NumberListImpl b = NumberLists.of(BIG, 8);
+        a.hashCode();
+        b.hashCode();
+        assertEquals(a, b);
+
+        b.set(b.size() / 2, (byte) ((b.get(b.size() / 2) + 1) % 8));
+        assertNotEquals(a, b);
+        b.set(b.size() / 2, a.get(a.size() / 2));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void testHashMapKeyAfterMutation() {
+        Map<NumberListImpl, String> map = new HashMap<>();
+        NumberListImpl key = NumberLists.of(BIG, 3);
+        map.put(key, "big");
+        assertEquals("big", map.get(NumberLists.of(BIG, 3)));
+        assertNull(map.get(NumberLists.of(BIG, 8)));
+
+        NumberListImpl probe = NumberLists.of(BIG, 3);
+        probe.hashCode();
+        probe.add((byte) 0);
+        assertNull(map.get(probe));
+    }
+
+    @Test
+    public void testInternReturnsCanonicalInstance() {
+        NumberListImpl a = NumberLists.of(BIG, 8);
+        NumberListImpl b = NumberLists.of(BIG, 8);
+        NumberListImpl ia = NumberLists.intern(a);
+        NumberListImpl ib = NumberLists.intern(b);
+        assertSame(ia, ib);
+        assertNotSame(a, ia);
+        assertEquals(a, ia);
+        assertSame(ia, NumberLists.intern(ia));
+        assertSame(ia, NumberLists.intern(new ConcurrentNumberList(b)));
+
+        assertNotSame(ia, NumberLists.intern(NumberLists.of(BIG, 3)));
+        assertNotSame(ia, NumberLists.intern(NumberLists.of("1" + BIG, 8)));
+        assertSame(NumberLists.intern(NumberLists.empty(8)), NumberLists.intern(NumberLists.empty(8)));
+
+        // the source stays mutable and independent of canonical copy
+        a.add((byte) 1);
+        assertEquals(b, ia);
+        assertTrue(NumberLists.internedCount() >= 4);
+    }
+
+    @Test
+    public void testInternedListIsImmutable() {
+        NumberListImpl list = NumberLists.intern(NumberLists.of("12345", 8));
+        String before = list.toString();
+        Runnable[] mutators = {
+            () -> list.add((byte) 1),
+            () -> list.add(0, (byte) 1),
+            () -> list.set(0, (byte) 1),
+            () -> list.remove(0),
+            () -> list.clear(),
+            () -> list.swap(0, 1),
+            () -> list.sortAscending(),
+            () -> list.sortDescending(),
+            () -> list.shiftLeft(),
+            () -> list.shiftRight(),
+            () -> {
+                Iterator<Byte> it = list.iterator();
+                it.next();
+                it.remove();
+            },
+            () -> {
+                ListIterator<Byte> it = list.listIterator();
+                it.next();
+                it.set((byte) 1);
+            },
+            () -> list.enableLiveScale(),
+            () -> list.enableLiveScale(10),
+        };
+        for (int i = 0; i < mutators.length; i++) {
+            try {
+                mutators[i].run();
+                fail("mutator " + i + " succeeded");
+            } catch (UnsupportedOperationException expected) {
+                // ok
+            }
+        }
+        assertEquals(before, list.toString());
+        assertNull(list.liveScaleView());
+
+        // derived lists are ordinary mutable lists
+        NumberListImpl scaled = list.changeScale(10);
+        scaled.add((byte) 1);
+        assertEquals("123451", scaled.toString());
+        assertFalse(list.subList(0, 2).isEmpty());
+        list.subList(0, 2).clear();
+    }
+
+    @Test
+    public void testInternNull() {
+        try {
+            NumberLists.intern(null);
+            fail();
+        } catch (NullPointerException expected) {
+            // ok
+        }
+    }
+}
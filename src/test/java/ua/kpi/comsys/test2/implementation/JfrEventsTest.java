@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JfrEventsTest {
+
+    private static final String PREFIX = "ua.kpi.comsys.numberlist.";
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name, String field, Object value) {
+        for (RecordedEvent e : events) {
+            if (e.getEventType().getName().equals(PREFIX + name)
+                    && (field == null || value.equals(e.getValue(field)))) {
+                return e;
+            }
+        }
+        throw new AssertionError("No " + name + " event with " + field + " = " + value);
+    }
+
+    @Test
+    public void testEventsRecorded() throws IOException {
+        Path dump = Files.createTempFile("numberlist", ".jfr");
+        File text = File.createTempFile("numberlist", ".txt");
+        Path bin = Files.createTempFile("numberlist", ".bin");
+        try {
+            NumberListImpl a = new NumberListImpl("123456789012345678901234567890");
+            NumberListImpl b = new NumberListImpl("987654321");
+            List<RecordedEvent> events;
+            try (Recording r = new Recording()) {
+                for (String name : new String[] {"Conversion", "ScaleChange", "Operation", "FileIO"}) {
+                    r.enable(PREFIX + name).withThreshold(Duration.ZERO);
+                }
+                r.start();
+
+                a.additionalOperation(b);
+                a.changeScale();
+                a.saveList(text);
+                new NumberListImpl(text);
+                NumberListBinaryFormat.write(a, bin);
+                NumberListBinaryFormat.read(bin);
+
+                r.stop();
+                r.dump(dump);
+            }
+            events = RecordingFile.readAllEvents(dump);
+
+            RecordedEvent conv = find(events, "Conversion", "direction", NumberListEvents.TO_BIG_INTEGER);
+            assertEquals(NumberListImpl.defaultBase(), conv.getInt("base"));
+            assertTrue(conv.getLong("digits") > 0);
+            find(events, "Conversion", "direction", NumberListEvents.FROM_BIG_INTEGER);
+
+            RecordedEvent op = find(events, "Operation", null, null);
+            assertEquals(NumberListImpl.getRecordBookNumber() % 7, op.getInt("opcode"));
+            assertEquals(b.size(), op.getLong("rightDigits"));
+
+            RecordedEvent scale = find(events, "ScaleChange", null, null);
+            assertEquals(NumberListImpl.defaultBase(), scale.getInt("sourceBase"));
+
+            RecordedEvent save = find(events, "FileIO", "operation", NumberListEvents.SAVE);
+            assertEquals(30, save.getLong("bytes"));
+            RecordedEvent load = find(events, "FileIO", "operation", NumberListEvents.LOAD);
+            assertEquals(30, load.getLong("bytes"));
+            assertEquals(Files.size(bin), find(events, "FileIO", "format", "binary").getLong("bytes"));
+
+            // hot events are recorded without stack traces
+            for (RecordedEvent e : new RecordedEvent[] {conv, op, scale, save, load}) {
+                assertNull(e.getStackTrace());
+            }
+        } finally {
+            Files.deleteIfExists(dump);
+            Files.deleteIfExists(bin);
+            text.delete();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import ua.kpi.comsys.test2.NumberList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournaledNumberListTest {
+
+    Path dir;
+    Path snapshot;
+    Path journal;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("numberlist-journal");
+        snapshot = dir.resolve("number.bin");
+        journal = dir.resolve("number.journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File x : files) x.delete();
+        }
+        Files.delete(dir);
+    }
+
+    // Applies the same mutations to any NumberList
+    private static void mutate(NumberList l) {
+        for (int i = 0; i < 300; i++) l.add((byte) (i % 3));
+        l.add(5, (byte) 2);
+        l.set(0, (byte) 1);
+        l.remove(10);
+        l.swap(1, 200);
+        l.shiftLeft();
+        l.shiftRight();
+        l.shiftLeft();
+        Iterator<Byte> it = l.iterator();
+        while (it.hasNext()) {
+            if (it.next() == 0) {
+                it.remove();
+                break;
+            }
+        }
+        l.remove((Object) (byte) 2);
+    }
+
+    @Test
+    public void testRecoverFromJournal() throws IOException {
+        NumberListImpl expected = new NumberListImpl();
+        mutate(expected);
+
+        try (JournaledNumberList list = JournaledNumberList.open(snapshot, journal, 16)) {
+            mutate(list);
+            assertEquals(expected, list);
+        }
+
+        try (JournaledNumberList recovered = JournaledNumberList.open(snapshot, journal)) {
+            assertEquals(expected, recovered);
+        }
+    }
+
+    @Test
+    public void testCompactThenContinue() throws IOException {
+        NumberListImpl expected = new NumberListImpl();
+        mutate(expected);
+        expected.sortDescending();
+        expected.add((byte) 1);
+
+        try (JournaledNumberList list = JournaledNumberList.open(snapshot, journal)) {
+            mutate(list);
+            list.compact();
+            long afterCompaction = Files.size(journal);
+            list.sortDescending();
+            list.add((byte) 1);
+            list.sync();
+            assertTrue("Journal should grow by a few bytes only", Files.size(journal) - afterCompaction < 64);
+        }
+
+        try (JournaledNumberList recovered = JournaledNumberList.open(snapshot, journal)) {
+            assertEquals(expected, recovered);
+        }
+    }
+
+    @Test
+    public void testTornTailIgnored() throws IOException {
+        try (JournaledNumberList list = JournaledNumberList.open(snapshot, journal, 1)) {
+            list.add((byte) 1);
+            list.add((byte) 2);
+        }
+        Files.write(journal, new byte[] {0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+
+        try (JournaledNumberList recovered = JournaledNumberList.open(snapshot, journal)) {
+            assertEquals("12", recovered.toString());
+            recovered.add((byte) 0);
+        }
+        try (JournaledNumberList recovered = JournaledNumberList.open(snapshot, journal)) {
+            assertEquals("120", recovered.toString());
+        }
+    }
+
+    @Test
+    public void testStaleJournalNotReplayedAfterCompaction() throws IOException {
+        Path old = dir.resolve("old.journal");
+        try (JournaledNumberList list = JournaledNumberList.open(snapshot, journal)) {
+            list.add((byte) 1);
+            list.add((byte) 2);
+            list.sync();
+            Files.copy(journal, old);
+            list.compact();
+        }
+        // simulate crash after snapshot was replaced but before journal was reset
+        Files.move(old, journal, StandardCopyOption.REPLACE_EXISTING);
+
+        try (JournaledNumberList recovered = JournaledNumberList.open(snapshot, journal)) {
+            assertEquals("12", recovered.toString());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LimbsTest {
+
+    private static long[] limbs(BigInteger v, DigitCodec codec) {
+        byte[] digits = codec.toDigits(v);
+        return Limbs.pack(digits, digits.length, codec);
+    }
+
+    private static BigInteger value(long[] limbs, DigitCodec codec) {
+        byte[] digits = Limbs.unpack(limbs, codec);
+        return codec.fromDigits(digits, 0, digits.length);
+    }
+
+    @Test
+    public void testArithmeticMatchesBigInteger() {
+        Random rnd = new Random(40);
+        for (int base = 2; base <= 16; base++) {
+            DigitCodec codec = DigitCodec.forBase(base);
+            long radix = Limbs.radix(codec);
+            for (int iter = 0; iter < 50; iter++) {
+                BigInteger x = new BigInteger(1 + rnd.nextInt(1500), rnd);
+                BigInteger y = new BigInteger(1 + rnd.nextInt(1500), rnd);
+                if (iter % 10 == 0) y = x;
+                long[] a = limbs(x, codec);
+                long[] b = limbs(y, codec);
+                String at = "base " + base + ": " + x + ", " + y;
+
+                assertEquals(at, x.compareTo(y), Limbs.compare(a, b));
+                assertEquals(at, x.add(y), value(Limbs.add(a, b, radix), codec));
+                assertEquals(at, x.subtract(y).max(BigInteger.ZERO), value(Limbs.subtract(a, b, radix), codec));
+                assertEquals(at, x.multiply(y), value(Limbs.multiply(a, b, radix), codec));
+            }
+        }
+    }
+
+    private static long[] words(BigInteger v) {
+        long[] w = new long[(v.bitLength() + 63) / 64];
+        for (int i = 0; i < w.length; i++) w[i] = v.shiftRight(64 * i).longValue();
+        return w;
+    }
+
+    @Test
+    public void testBitwiseAndDivisionMatchBigInteger() {
+        Random rnd = new Random(41);
+        for (int base = 2; base <= 16; base++) {
+            DigitCodec codec = DigitCodec.forBase(base);
+            long radix = Limbs.radix(codec);
+            for (int iter = 0; iter < 50; iter++) {
+                BigInteger x = new BigInteger(rnd.nextInt(1500), rnd);
+                BigInteger y = new BigInteger(rnd.nextInt(1500), rnd);
+                long[] a = limbs(x, codec);
+                long[] b = limbs(y, codec);
+                String at = "base " + base + ": " + x + ", " + y;
+
+                assertArrayEquals(at, words(x), Limbs.toWords(a, radix));
+                assertArrayEquals(at, a, Limbs.fromWords(words(x), radix));
+                long[] wx = Limbs.toWords(a, radix);
+                long[] wy = Limbs.toWords(b, radix);
+                assertEquals(at, x.or(y), value(Limbs.fromWords(Limbs.or(wx, wy), radix), codec));
+                assertEquals(at, x.and(y), value(Limbs.fromWords(Limbs.and(wx, wy), radix), codec));
+
+                long d = 1 + (rnd.nextLong() >>> 1) % (radix - 1);
+                if (iter % 10 == 0) d = radix - 1;
+                long[][] qr = Limbs.divide(a, d, radix);
+                BigInteger[] expected = x.divideAndRemainder(BigInteger.valueOf(d));
+                assertEquals(at + " / " + d, expected[0], value(qr[0], codec));
+                assertEquals(at + " % " + d, expected[1], value(qr[1], codec));
+            }
+        }
+    }
+
+    @Test
+    public void testAdditionalOperationMatchesBigInteger() {
+        // short right operands take the limb path of the record book operation
+        Random rnd = new Random(42);
+        for (int iter = 0; iter < 100; iter++) {
+            BigInteger x = new BigInteger(1 + rnd.nextInt(3000), rnd);
+            BigInteger y = new BigInteger(1 + rnd.nextInt(iter % 2 == 0 ? 60 : 3000), rnd);
+            NumberListImpl a = new NumberListImpl(x.toString());
+            NumberListImpl b = new NumberListImpl(y.toString());
+            BigInteger expected = NumberListImpl.applyOperation(x, y);
+            assertEquals(x + ", " + y, expected == null ? "" : expected.toString(),
+                    a.additionalOperation(b).isEmpty() ? "" : a.additionalOperation(b).toDecimalString());
+        }
+    }
+
+    @Test
+    public void testCarriesAtLimbBoundary() {
+        DigitCodec ternary = DigitCodec.forBase(3);
+        long radix = Limbs.radix(ternary);
+        assertEquals(3L * 1350851717672992089L, radix); // 3^39
+
+        BigInteger r = BigInteger.valueOf(radix);
+        BigInteger allTwos = r.pow(3).subtract(BigInteger.ONE);
+        long[] a = limbs(allTwos, ternary);
+        long[] one = limbs(BigInteger.ONE, ternary);
+        assertEquals(allTwos.add(BigInteger.ONE), value(Limbs.add(a, one, radix), ternary));
+        assertEquals(allTwos.multiply(allTwos), value(Limbs.multiply(a, a, radix), ternary));
+        assertEquals(BigInteger.ZERO, value(Limbs.subtract(one, a, radix), ternary));
+        assertEquals("0", new String(new char[] {ternary.toChar(Limbs.unpack(new long[0], ternary)[0])}));
+    }
+
+    @Test
+    public void testDivide128() {
+        Random rnd = new Random(128);
+        BigInteger two64 = BigInteger.ONE.shiftLeft(64);
+        for (int i = 0; i < 10000; i++) {
+            long d = rnd.nextLong() >>> (1 + rnd.nextInt(62));
+            if (d == 0) d = 1;
+            long hi = Long.remainderUnsigned(rnd.nextLong() >>> 1, d);
+            long lo = rnd.nextLong();
+            BigInteger n = BigInteger.valueOf(hi).multiply(two64).add(new BigInteger(Long.toUnsignedString(lo)));
+            BigInteger q = n.divide(BigInteger.valueOf(d));
+            assertEquals(hi + ":" + lo + " / " + d, q.longValue(), Limbs.divide128(hi, lo, d));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LiveScaleTest {
+
+    private static void assertScaled(NumberListImpl list, int base) {
+        assertEquals(list.copy().changeScale(base).toString(), list.changeScale(base).toString());
+    }
+
+    private static void appendRandom(NumberListImpl list, Random rnd, int n) {
+        for (int i = 0; i < n; i++) {
+            list.add((byte) rnd.nextInt(3));
+        }
+    }
+
+    @Test
+    public void testAppendsAreFoldedIncrementally() {
+        Random rnd = new Random(1);
+        NumberListImpl list = NumberLists.empty(3);
+        list.enableLiveScale(8);
+        assertScaled(list, 8);
+        LiveScaleView view = list.liveScaleView();
+        assertEquals(1, view.fullRecomputes);
+
+        for (int batch = 0; batch < 200; batch++) {
+            appendRandom(list, rnd, 1 + rnd.nextInt(100));
+            assertScaled(list, 8);
+        }
+        assertEquals(1, view.fullRecomputes);
+        assertEquals(200, view.incrementalUpdates);
+
+        // other bases are converted as before
+        assertScaled(list, 10);
+        list.addAll(Arrays.asList((byte) 2, (byte) 0, (byte) 1));
+        list.add(list.size(), (byte) 1);
+        assertScaled(list, 8);
+        assertEquals(1, view.fullRecomputes);
+    }
+
+    @Test
+    public void testDefaultNextBaseAndLeadingZeros() {
+        NumberListImpl list = NumberLists.empty(3);
+        list.enableLiveScale();
+        list.add((byte) 0);
+        list.add((byte) 0);
+        assertEquals("0", list.changeScale().toString());
+        list.add((byte) 2);
+        list.add((byte) 1);
+        assertEquals(list.copy().changeScale().toString(), list.changeScale().toString());
+        assertEquals(NumberLists.of("7", 8), list.changeScale(8));
+    }
+
+    @Test
+    public void testOtherMutationsRecompute() {
+        Random rnd = new Random(2);
+        NumberListImpl list = NumberLists.of(ScalingFixtures.decimal(3000), 3);
+        list.enableLiveScale(8);
+        assertScaled(list, 8);
+        LiveScaleView view = list.liveScaleView();
+
+        list.set(5, (byte) ((list.get(5) + 1) % 3));
+        appendRandom(list, rnd, 10);
+        assertScaled(list, 8);
+        assertEquals(2, view.fullRecomputes);
+
+        ListIterator<Byte> it = list.listIterator(list.size() - 1);
+        it.next();
+        it.set((byte) ((list.get(list.size() - 1) + 1) % 3));
+        assertScaled(list, 8);
+        assertEquals(3, view.fullRecomputes);
+
+        list.remove(0);
+        assertScaled(list, 8);
+        list.add(0, (byte) 1);
+        assertScaled(list, 8);
+        list.shiftLeft();
+        assertScaled(list, 8);
+        list.sortDescending();
+        assertScaled(list, 8);
+        list.clear();
+        assertScaled(list, 8);
+        assertEquals(8, view.fullRecomputes);
+
+        appendRandom(list, rnd, 50);
+        assertScaled(list, 8);
+        assertEquals(8, view.fullRecomputes);
+    }
+
+    @Test
+    public void testLargeAppendFallsBackToFullConversion() {
+        Random rnd = new Random(3);
+        NumberListImpl list = NumberLists.empty(3);
+        list.enableLiveScale(16);
+        assertScaled(list, 16);
+        appendRandom(list, rnd, LiveScaleView.MAX_PENDING_CHUNKS * 40);
+        assertScaled(list, 16);
+        assertEquals(2, list.liveScaleView().fullRecomputes);
+
+        list.disableLiveScale();
+        appendRandom(list, rnd, 10);
+        assertScaled(list, 16);
+    }
+}
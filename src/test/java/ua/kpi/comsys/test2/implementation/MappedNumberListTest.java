@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedNumberListTest {
+
+    private Path scratch;
+    private MappedNumberList list;
+
+    @Before
+    public void setUp() throws IOException {
+        scratch = Files.createTempFile("mapped", ".digits");
+        // tiny pages so that tests cross and evict pages
+        list = new MappedNumberList(10, scratch, true, 64, 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        list.close();
+        assertFalse(Files.exists(scratch));
+    }
+
+    private NumberListImpl fill(int n, long seed) {
+        Random rnd = new Random(seed);
+        NumberListImpl ref = NumberLists.empty(10);
+        for (int i = 0; i < n; i++) {
+            byte d = (byte) rnd.nextInt(10);
+            ref.add(d);
+            list.add(d);
+        }
+        return ref;
+    }
+
+    @Test
+    public void testAppendGetSetAcrossPages() {
+        NumberListImpl ref = fill(1000, 1);
+        assertEquals(1000, list.longSize());
+        assertEquals(ref.toString(), list.toString());
+        assertTrue(list.cachedPages() <= 2);
+        assertTrue(list.cachedBytes() <= 2 * 64);
+        assertEquals(ref, list);
+        assertEquals(ref.hashCode(), list.hashCode());
+
+        for (int i = 0; i < 1000; i += 37) {
+            byte d = (byte) ((ref.get(i) + 1) % 10);
+            assertEquals(ref.set(i, d), list.set(i, (Byte) d));
+        }
+        assertEquals(ref.toString(), list.toString());
+
+        Iterator<Byte> it = ref.iterator();
+        for (Byte d : list) assertEquals(it.next(), d);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testKeptScratchFileHoldsDigits() throws IOException {
+        Path kept = Files.createTempFile("mapped", ".digits");
+        try {
+            MappedNumberList l = new MappedNumberList(10, kept, false, 64, 2);
+            Random rnd = new Random(7);
+            byte[] expected = new byte[1000];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = (byte) rnd.nextInt(10);
+                l.append(expected[i]);
+            }
+            // rewrite a page that was evicted, then drop the tail
+            l.set(3, (byte) 9);
+            expected[3] = 9;
+            l.remove(999);
+            l.close();
+            assertArrayEquals(Arrays.copyOf(expected, 999), Files.readAllBytes(kept));
+        } finally {
+            Files.delete(kept);
+        }
+    }
+
+    @Test
+    public void testInsertRemoveShift() {
+        NumberListImpl ref = fill(300, 2);
+        ref.add(150, (byte) 7);
+        list.add(150, (byte) 7);
+        ref.add(0, (byte) 3);
+        list.add(0, (byte) 3);
+        assertEquals(ref.remove(70), list.remove(70));
+        assertEquals(ref.remove((Object) (byte) 5), list.remove((Object) (byte) 5));
+        assertEquals(ref.toString(), list.toString());
+
+        ref.shiftLeft();
+        list.shiftLeft();
+        assertEquals(ref.toString(), list.toString());
+        ref.shiftRight();
+        ref.shiftRight();
+        list.shiftRight();
+        list.shiftRight();
+        assertEquals(ref.toString(), list.toString());
+
+        assertTrue(list.swap(1, 250));
+        assertFalse(list.swap(1, 1000));
+        ref.swap(1, 250);
+        assertEquals(ref.toString(), list.toString());
+
+        ref.removeAll(Arrays.asList((byte) 0, (byte) 9));
+        list.removeAll(Arrays.asList((byte) 0, (byte) 9));
+        assertEquals(ref.toString(), list.toString());
+        ref.retainAll(Arrays.asList((byte) 1, (byte) 2, (byte) 3));
+        list.retainAll(Arrays.asList((byte) 1, (byte) 2, (byte) 3));
+        assertEquals(ref.toString(), list.toString());
+        assertEquals(ref.subList(3, 40), list.subList(3, 40));
+    }
+
+    @Test
+    public void testListIterator() {
+        NumberListImpl ref = fill(200, 3);
+        ListIterator<Byte> a = ref.listIterator();
+        ListIterator<Byte> b = list.listIterator();
+        while (a.hasNext()) {
+            byte d = a.next();
+            assertEquals((Byte) d, b.next());
+            if (d == 4) {
+                a.remove();
+                b.remove();
+            } else if (d == 6) {
+                a.add((byte) 1);
+                b.add((byte) 1);
+            } else if (d == 8) {
+                a.set((byte) 0);
+                b.set((byte) 0);
+            }
+        }
+        assertEquals(ref.toString(), list.toString());
+    }
+
+    @Test
+    public void testSort() {
+        NumberListImpl ref = fill(777, 4);
+        ref.sortAscending();
+        list.sortAscending();
+        assertEquals(ref.toString(), list.toString());
+        ref.sortDescending();
+        list.sortDescending();
+        assertEquals(ref.toString(), list.toString());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Path out = Files.createTempFile("mapped", ".txt");
+        try {
+            list.saveList(out.toFile());
+            assertEquals("0", new String(Files.readAllBytes(out), StandardCharsets.US_ASCII));
+
+            list.add((byte) 0);
+            list.add((byte) 0);
+            NumberListImpl ref = fill(500, 5);
+            list.saveList(out.toFile());
+            assertEquals(ref.toDecimalString(), new String(Files.readAllBytes(out), StandardCharsets.US_ASCII));
+            assertEquals(ref.toDecimalString(), list.toDecimalString());
+
+            list.saveDigits(out);
+            assertEquals("00" + ref, new String(Files.readAllBytes(out), StandardCharsets.US_ASCII));
+            try (MappedNumberList loaded = MappedNumberList.load(out, 10)) {
+                assertEquals("00" + ref, loaded.toString());
+            }
+
+            Files.write(out, "12x4\n".getBytes(StandardCharsets.US_ASCII));
+            try (MappedNumberList loaded = MappedNumberList.load(out, 10)) {
+                assertTrue(loaded.isEmpty());
+            }
+        } finally {
+            Files.delete(out);
+        }
+    }
+
+    @Test
+    public void testOtherBaseRoundTrip() throws IOException {
+        NumberListImpl ref = NumberLists.of(ScalingFixtures.decimal(400), 3);
+        try (MappedNumberList m = MappedNumberList.copyOf(ref)) {
+            assertEquals(3, m.base());
+            assertEquals(ref, m);
+            assertEquals(ref, m.toNumberListImpl());
+            assertEquals(ref.toDecimalString(), m.toDecimalString());
+        }
+    }
+
+    @Test
+    public void testDecimalImportAndExportInBlocks() throws IOException {
+        // several conversion blocks in both directions
+        String dec = ScalingFixtures.decimal(300000);
+        Path in = Files.createTempFile("mapped", ".txt");
+        Path out = Files.createTempFile("mapped", ".txt");
+        try {
+            Files.write(in, ("  " + dec + "\n").getBytes(StandardCharsets.US_ASCII));
+            try (MappedNumberList m = MappedNumberList.loadDecimal(in, 3)) {
+                assertEquals(NumberLists.of(dec, 3).toString(), m.toString());
+                m.saveList(out.toFile());
+                assertEquals(dec, new String(Files.readAllBytes(out), StandardCharsets.US_ASCII));
+            }
+
+            String[][] cases = {{" 007\n", "21"}, {"0", "0"}, {"000", "0"}, {"1 2", ""}, {"", ""}, {"-5", ""}};
+            for (String[] c : cases) {
+                Files.write(in, c[0].getBytes(StandardCharsets.US_ASCII));
+                try (MappedNumberList m = MappedNumberList.loadDecimal(in, 3)) {
+                    assertEquals(c[0], c[1], m.toString());
+                }
+            }
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDigitOutOfBase() {
+        list.add((byte) 10);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullDigit() {
+        list.add(null);
+    }
+}
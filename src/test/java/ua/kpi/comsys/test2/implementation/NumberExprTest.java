@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberExprTest {
+
+    private static String randomDecimal(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(1 + rnd.nextInt(9));
+        for (int i = 1; i < digits; i++) sb.append(rnd.nextInt(10));
+        return sb.toString();
+    }
+
+    @Test
+    public void testOrChain() {
+        NumberListImpl a = new NumberListImpl("15");
+        NumberListImpl b = new NumberListImpl("16");
+        NumberListImpl c = new NumberListImpl("64");
+        NumberListImpl d = new NumberListImpl("3");
+
+        NumberListImpl res = NumberExpr.of(a).or(b).or(c).or(d).evaluate();
+        assertEquals("95", res.toDecimalString());
+        assertEquals(new NumberListImpl("95"), res);
+    }
+
+    @Test
+    public void testInBaseMatchesChangeScale() {
+        NumberListImpl a = new NumberListImpl("1212144468782345613");
+        NumberListImpl b = new NumberListImpl("1000");
+
+        NumberListImpl expected = new NumberListImpl(
+                new BigInteger("1212144468782345613").or(new BigInteger("1000")).toString()).changeScale();
+        NumberListImpl actual = NumberExpr.of(a).or(b).inBase(expected.base()).evaluate();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testAdditionalOperationMatchesList() {
+        NumberListImpl a = new NumberListImpl("227");
+        NumberListImpl b = new NumberListImpl("14");
+
+        assertEquals(a.additionalOperation(b), NumberExpr.of(a).additionalOperation(b).evaluate());
+        // undefined result (e.g. division by zero) is propagated as empty list
+        NumberListImpl zero = new NumberListImpl("0");
+        assertEquals(a.additionalOperation(zero), NumberExpr.of(a).additionalOperation(zero).evaluate());
+    }
+
+    @Test
+    public void testLargeMixedTreeInParallel() {
+        Random rnd = new Random(42);
+        String[] values = new String[8];
+        NumberListImpl[] lists = new NumberListImpl[8];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomDecimal(rnd, 1500);
+            lists[i] = new NumberListImpl(values[i]);
+        }
+
+        NumberExpr left = NumberExpr.of(lists[0]).or(lists[1]).or(lists[2]).or(lists[3]);
+        NumberExpr right = NumberExpr.of(lists[4]).add(lists[5]).add(lists[6]).add(lists[7]);
+        NumberListImpl res = left.and(right).multiply(lists[0]).evaluate();
+
+        BigInteger l = new BigInteger(values[0]).or(new BigInteger(values[1]))
+                .or(new BigInteger(values[2])).or(new BigInteger(values[3]));
+        BigInteger r = new BigInteger(values[4]).add(new BigInteger(values[5]))
+                .add(new BigInteger(values[6])).add(new BigInteger(values[7]));
+        assertEquals(l.and(r).multiply(new BigInteger(values[0])).toString(), res.toDecimalString());
+    }
+
+    @Test
+    public void testSameLeafUsedTwice() {
+        NumberListImpl a = new NumberListImpl("12345678901234567890");
+        NumberListImpl res = NumberExpr.of(a).add(a).add(a).evaluate();
+        assertEquals("37037036703703703670", res.toDecimalString());
+        assertTrue(res.base() == a.base());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListBatchTest {
+
+    private static List<NumberListImpl> randomLists(long seed, int count) {
+        Random rnd = new Random(seed);
+        List<NumberListImpl> res = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // mix of tiny and larger numbers, so grouping and splitting both happen
+            int digits = (i % 10 == 0) ? 200 + rnd.nextInt(200) : 1 + rnd.nextInt(12);
+            StringBuilder sb = new StringBuilder();
+            sb.append(1 + rnd.nextInt(9));
+            for (int d = 1; d < digits; d++) sb.append(rnd.nextInt(10));
+            res.add(new NumberListImpl(sb.toString()));
+        }
+        return res;
+    }
+
+    @Test
+    public void testAdditionalOperationsInInputOrder() {
+        List<NumberListImpl> left = randomLists(1, 300);
+        List<NumberListImpl> right = randomLists(2, 300);
+
+        NumberListBatch batch = new NumberListBatch(ForkJoinPool.commonPool(), 64);
+        NumberListBatch.Result res = batch.additionalOperations(left, right);
+
+        assertEquals(300, res.count());
+        for (int i = 0; i < left.size(); i++) {
+            assertEquals("Wrong result at " + i, left.get(i).additionalOperation(right.get(i)), res.results().get(i));
+        }
+    }
+
+    @Test
+    public void testChangeScalesInInputOrder() {
+        List<NumberListImpl> lists = randomLists(3, 200);
+
+        NumberListBatch.Result res = new NumberListBatch().changeScales(lists);
+
+        assertEquals(200, res.count());
+        for (int i = 0; i < lists.size(); i++) {
+            assertEquals("Wrong result at " + i, lists.get(i).changeScale(), res.results().get(i));
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        NumberListBatch.Result res = new NumberListBatch().changeScales(randomLists(4, 50));
+
+        assertTrue(res.elapsedNanos() > 0);
+        assertTrue(res.throughput() > 0);
+        assertTrue(res.latencyPercentileNanos(50) <= res.latencyPercentileNanos(99));
+        assertTrue(res.latencyPercentileNanos(99) <= res.maxLatencyNanos());
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        NumberListBatch.Result res = new NumberListBatch().changeScales(new ArrayList<NumberListImpl>());
+        assertEquals(0, res.count());
+        assertEquals(0L, res.maxLatencyNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedOperands() {
+        new NumberListBatch().additionalOperations(randomLists(5, 3), randomLists(6, 2));
+    }
+}
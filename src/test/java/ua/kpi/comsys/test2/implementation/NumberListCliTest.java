@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListCliTest {
+
+    private String err;
+
+    private String run(String input, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        int rc = NumberListCli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out,
+                new PrintStream(errBytes, true));
+        err = new String(errBytes.toByteArray(), StandardCharsets.US_ASCII);
+        assertEquals(err, 0, rc);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testScaleKeepsOrderAndLines() {
+        StringBuilder in = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        // more lines than one batch, so several batches run in parallel
+        for (int i = 0; i < 3 * NumberListCli.BATCH_LINES + 5; i++) {
+            String d = ScalingFixtures.decimal(1 + i % 60, i);
+            in.append(d).append('\n');
+            expected.append(new BigInteger(d).toString(8)).append('\n');
+        }
+        assertEquals(expected.toString(), run(in.toString(), "--scale", "--threads", "3", "--quiet"));
+        assertEquals("", err);
+    }
+
+    @Test
+    public void testBasesAndDecimalOutput() {
+        assertEquals("FF\n\n0\n", run("255\n-1\n000\n", "--scale", "16", "--quiet"));
+        assertEquals("255\n", run("255\n", "--scale", "2", "--decimal", "--quiet"));
+        assertEquals("11111111\n", run("255\n", "--base", "2", "--quiet"));
+        assertEquals("\n", run("12a\n", "--quiet"));
+    }
+
+    @Test
+    public void testOperation() {
+        BigInteger x = new BigInteger("123456789");
+        BigInteger y = new BigInteger("987");
+        String expected = NumberListImpl.applyOperation(x, y).toString();
+        assertEquals(expected + "\n", run("123456789\n", "--op", "987", "--decimal", "--quiet"));
+    }
+
+    @Test
+    public void testFilesAndReport() throws IOException {
+        Path a = Files.createTempFile("cli", ".txt");
+        Path b = Files.createTempFile("cli", ".txt");
+        try {
+            Files.write(a, "10\n20\n".getBytes(StandardCharsets.US_ASCII));
+            Files.write(b, "30".getBytes(StandardCharsets.US_ASCII));
+            assertEquals("A\n14\n1E\n", run("", "--scale", "16", a.toString(), b.toString()));
+            assertTrue(err, err.startsWith("3 numbers"));
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+        }
+    }
+
+    @Test
+    public void testBadArguments() {
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        PrintStream stderr = new PrintStream(errBytes, true);
+        ByteArrayInputStream stdin = new ByteArrayInputStream(new byte[0]);
+        assertEquals(2, NumberListCli.run(new String[] {"--scale", "17"}, stdin, new ByteArrayOutputStream(), stderr));
+        assertEquals(2, NumberListCli.run(new String[] {"--scale", "--op", "1"}, stdin, new ByteArrayOutputStream(), stderr));
+        assertEquals(2, NumberListCli.run(new String[] {"--bogus"}, stdin, new ByteArrayOutputStream(), stderr));
+        assertEquals(1, NumberListCli.run(new String[] {"/nonexistent/numbers.txt"}, stdin, new ByteArrayOutputStream(),
+                stderr));
+        assertTrue(new String(errBytes.toByteArray(), StandardCharsets.US_ASCII).contains("Usage"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListIOTest {
+
+    Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("numberlist-io");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File x : files) x.delete();
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testSaveThenLoad() throws Exception {
+        Random rnd = new Random(3);
+        StringBuilder sb = new StringBuilder("7");
+        for (int i = 0; i < 5000; i++) sb.append(rnd.nextInt(10));
+        String value = sb.toString();
+        NumberListImpl list = new NumberListImpl(value);
+
+        Path p = dir.resolve("big.txt");
+        NumberListIO.saveAsync(list, p).get();
+        assertEquals(value, new String(Files.readAllBytes(p), StandardCharsets.US_ASCII));
+
+        assertEquals(list, NumberListIO.loadAsync(p).get());
+    }
+
+    @Test
+    public void testSaveStreamsSeveralChunks() throws Exception {
+        // more digits than WRITE_AHEAD buffers hold
+        String value = ScalingFixtures.decimal(300000);
+        Path p = dir.resolve("chunks.txt");
+        NumberListIO.saveAsync(new NumberListImpl(value), p).get();
+        assertEquals(value, new String(Files.readAllBytes(p), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testSaveFailureCompletesExceptionally() throws Exception {
+        try {
+            NumberListIO.saveAsync(new NumberListImpl("12"), dir).get();
+            throw new AssertionError("saving into a directory succeeded");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testLoadFollowsFileConstructorRules() throws Exception {
+        Path p = dir.resolve("lines.txt");
+        Files.write(p, " 227 \r\n14\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(new NumberListImpl("227"), NumberListIO.loadAsync(p).get());
+
+        Files.write(p, "-4".getBytes(StandardCharsets.US_ASCII));
+        assertTrue(NumberListIO.loadAsync(p).get().isEmpty());
+
+        assertTrue(NumberListIO.loadAsync(dir.resolve("missing.txt")).get().isEmpty());
+    }
+
+    @Test
+    public void testLineLongerThanBuffer() throws Exception {
+        Path p = dir.resolve("zeros.txt");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300000; i++) sb.append('0');
+        sb.append("14\n15");
+        Files.write(p, sb.toString().getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(new NumberListImpl("14"), NumberListIO.loadAsync(p).get());
+    }
+
+    @Test
+    public void testManyInFlight() throws Exception {
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            saves.add(NumberListIO.saveAsync(new NumberListImpl(Integer.toString(i * 1000 + 7)),
+                    dir.resolve(i + ".txt")));
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).get();
+
+        List<CompletableFuture<NumberListImpl>> loads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            loads.add(NumberListIO.loadAsync(dir.resolve(i + ".txt")));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.toString(i * 1000 + 7), loads.get(i).get().toDecimalString());
+        }
+    }
+}
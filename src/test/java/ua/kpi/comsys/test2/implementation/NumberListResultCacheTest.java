@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListResultCacheTest {
+
+    @After
+    public void tearDown() {
+        NumberListResultCache.disable();
+    }
+
+    @Test
+    public void testHitReturnsEqualIndependentCopy() {
+        NumberListResultCache.enable(1 << 20, null);
+        NumberListImpl a = new NumberListImpl(ScalingFixtures.decimal(500));
+        NumberListImpl b = new NumberListImpl(ScalingFixtures.decimal(300, 3));
+        long hits = NumberListResultCache.hits();
+
+        NumberListImpl first = a.additionalOperation(b);
+        NumberListImpl second = a.additionalOperation(b);
+        assertEquals(hits + 1, NumberListResultCache.hits());
+        assertEquals(first, second);
+
+        second.set(0, (byte) 0);
+        first.clear();
+        assertEquals(a.additionalOperation(new NumberListImpl(ScalingFixtures.decimal(300, 3))),
+                new NumberListImpl(ScalingFixtures.decimal(500)).additionalOperation(b));
+        assertEquals(hits + 3, NumberListResultCache.hits());
+
+        NumberListImpl scaled = a.changeScale();
+        assertEquals(scaled, a.changeScale());
+        assertEquals(ScalingFixtures.decimal(500), a.changeScale(10).toString());
+        assertEquals(ScalingFixtures.decimal(500), a.changeScale(10).toString());
+        assertEquals(hits + 5, NumberListResultCache.hits());
+    }
+
+    @Test
+    public void testMutatedOperandMisses() {
+        NumberListResultCache.enable(1 << 20, null);
+        NumberListImpl a = new NumberListImpl("123456789");
+        NumberListImpl b = new NumberListImpl("987");
+        NumberListImpl before = a.additionalOperation(b);
+        long misses = NumberListResultCache.misses();
+
+        a.add((byte) 1);
+        NumberListImpl after = a.additionalOperation(b);
+        assertEquals(misses + 1, NumberListResultCache.misses());
+        assertNotEquals(before, after);
+        NumberListResultCache.disable();
+        assertEquals(after, a.additionalOperation(b));
+    }
+
+    @Test
+    public void testTtlExpires() throws InterruptedException {
+        NumberListResultCache.enable(1 << 20, Duration.ofMillis(20));
+        NumberListImpl a = new NumberListImpl("1000");
+        a.changeScale();
+        Thread.sleep(50);
+        long expirations = NumberListResultCache.expirations();
+        a.changeScale();
+        assertEquals(expirations + 1, NumberListResultCache.expirations());
+    }
+
+    @Test
+    public void testBudgetWeightedByDigits() {
+        NumberListResultCache.enable(4000, null);
+        for (int i = 0; i < 20; i++) {
+            new NumberListImpl(ScalingFixtures.decimal(200, i)).changeScale();
+        }
+        assertTrue(NumberListResultCache.bytes() <= 4000);
+        assertTrue(NumberListResultCache.evictions() > 0);
+        assertTrue(NumberListResultCache.size() < 20);
+
+        // result larger than budget is not cached at all
+        new NumberListImpl(ScalingFixtures.decimal(5000)).changeScale();
+        assertTrue(NumberListResultCache.bytes() <= 4000);
+    }
+
+    @Test
+    public void testKeysCompareDigitsNotOnlyHash() {
+        byte[] x = {1, 2, 0};
+        byte[] y = {1, 2, 0};
+        byte[] z = {2, 1, 0};
+        NumberListResultCache.Key kx = new NumberListResultCache.Key(1, 6, 3, x, 3, z);
+        assertEquals(kx, new NumberListResultCache.Key(1, 6, 3, y, 3, z));
+        assertNotEquals(kx, new NumberListResultCache.Key(1, 6, 3, z, 3, x));
+        assertNotEquals(kx, new NumberListResultCache.Key(2, 6, 3, x, 3, z));
+        assertNotEquals(NumberListResultCache.hash64(x, 0), NumberListResultCache.hash64(z, 0));
+    }
+}
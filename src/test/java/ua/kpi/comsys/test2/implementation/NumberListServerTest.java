@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NumberListServerTest {
+
+    private static final String A = ScalingFixtures.decimal(2000);
+    private static final String B = ScalingFixtures.decimal(700, 3);
+
+    private Path root;
+    private NumberListServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("numberlist-server");
+        server = NumberListServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), root, 2, 64, 16);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.delete(p);
+        }
+        Files.delete(root);
+    }
+
+    private static Throwable failure(CompletableFuture<?> f) {
+        try {
+            f.join();
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+        fail("Request succeeded");
+        return null;
+    }
+
+    private static void checkOperations(NumberListClient client) {
+        NumberListImpl a = client.parse(A, 3).join();
+        assertEquals(new BigInteger(A).toString(3), a.toString());
+        assertEquals(A, client.toDecimalString(a).join());
+
+        NumberListImpl octal = client.changeScale(a, 8).join();
+        assertEquals(new BigInteger(A).toString(8), octal.toString());
+
+        NumberListImpl b = NumberLists.of(B, 3);
+        NumberListImpl r = client.additionalOperation(a, b).join();
+        assertEquals(a.additionalOperation(b), r);
+        assertEquals(3, b.base());
+    }
+
+    @Test
+    public void testOperationsOverTcp() throws IOException {
+        try (NumberListClient client = NumberListClient.connect(server.address())) {
+            client.ping().join();
+            checkOperations(client);
+
+            NumberListImpl x = NumberLists.of("12345", 10);
+            assertEquals("52341", client.swap(x, 0, 4).join().toString());
+            assertEquals("54321", client.sortDescending(x).join().toString());
+            assertEquals("12345", client.sortAscending(NumberLists.of("53142", 10)).join().toString());
+            assertEquals("23451", client.shiftLeft(x).join().toString());
+            assertEquals("51234", client.shiftRight(x).join().toString());
+            assertEquals("12345", x.toString());
+            assertTrue(client.parse("12a", 8).join().isEmpty());
+        }
+    }
+
+    @Test
+    public void testOperationsOverUnixSocket() throws IOException {
+        Path socket = root.resolve("server.sock");
+        SocketAddress address;
+        NumberListServer unix;
+        try {
+            address = UnixDomainSocketAddress.of(socket);
+            unix = NumberListServer.start(address);
+        } catch (UnsupportedOperationException e) {
+            return; // platform without Unix-domain sockets
+        }
+        try (NumberListClient client = NumberListClient.connect(address)) {
+            checkOperations(client);
+        } finally {
+            unix.close();
+        }
+        assertTrue(Files.notExists(socket));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        try (NumberListClient client = NumberListClient.connect(server.address())) {
+            NumberListImpl a = NumberLists.of(A, 16);
+            client.save(a, "a.txt").join();
+            assertEquals(A, new String(Files.readAllBytes(root.resolve("a.txt")), StandardCharsets.US_ASCII));
+            assertEquals(NumberLists.of(A, 8), client.load("a.txt", 8).join());
+            assertTrue(client.load("missing.txt", 8).join().isEmpty());
+
+            Throwable e = failure(client.save(a, "../outside.txt"));
+            assertTrue(e instanceof IllegalStateException);
+            assertTrue(e.getMessage(), e.getMessage().contains("outside"));
+            assertTrue(Files.notExists(root.resolveSibling("outside.txt")));
+        }
+    }
+
+    @Test
+    public void testSaveFailureIsReported() throws IOException {
+        Path taken = Files.createDirectory(root.resolve("taken"));
+        Files.createFile(taken.resolve("x"));
+        try (NumberListClient client = NumberListClient.connect(server.address())) {
+            NumberListImpl a = NumberLists.of(A, 3);
+            Throwable e = failure(client.save(a, "missing/a.txt"));
+            assertTrue(String.valueOf(e), e instanceof IllegalStateException);
+            assertTrue(e.getMessage(), e.getMessage().contains("NoSuchFile"));
+
+            // a non-empty directory cannot be replaced by the file
+            e = failure(client.save(a, "taken"));
+            assertTrue(String.valueOf(e), e instanceof IllegalStateException);
+            assertTrue(Files.isDirectory(taken));
+        } finally {
+            Files.delete(taken.resolve("x"));
+            Files.delete(taken);
+        }
+        // temporary files are removed after the failed saves
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testErrorsAreReported() throws IOException {
+        try (NumberListClient client = NumberListClient.connect(server.address())) {
+            Throwable e = failure(client.changeScale(NumberLists.of("10", 3), 17));
+            assertTrue(e instanceof IllegalStateException);
+            assertTrue(e.getMessage(), e.getMessage().contains("17"));
+            assertTrue(server.errors() >= 1);
+            // connection stays usable
+            assertEquals("101", client.changeScale(NumberLists.of("5", 3), 2).join().toString());
+        }
+    }
+
+    @Test
+    public void testPipelinedRequestsFromManyConnections() throws IOException {
+        List<NumberListClient> clients = new ArrayList<>();
+        try {
+            List<CompletableFuture<NumberListImpl>> results = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                NumberListClient client = NumberListClient.connect(server.address(), 8);
+                clients.add(client);
+                for (int i = 0; i < 50; i++) {
+                    results.add(client.parse(String.valueOf(1000L * c + i), 16));
+                }
+            }
+            for (int c = 0; c < 4; c++) {
+                for (int i = 0; i < 50; i++) {
+                    assertEquals(Long.toHexString(1000L * c + i).toUpperCase(), results.get(c * 50 + i).join().toString());
+                }
+            }
+            assertTrue(server.requests() >= 200);
+        } finally {
+            for (NumberListClient client : clients) client.close();
+        }
+    }
+
+    @Test
+    public void testBusyWhenQueueIsFull() throws IOException {
+        NumberListServer small = NumberListServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                null, 1, 1, 64);
+        try (NumberListClient client = NumberListClient.connect(small.address(), 64)) {
+            NumberListImpl big = NumberLists.of(ScalingFixtures.decimal(20000), 3);
+            List<CompletableFuture<NumberListImpl>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(client.changeScale(big, 10));
+            }
+            int busy = 0;
+            for (CompletableFuture<NumberListImpl> f : results) {
+                try {
+                    assertEquals(ScalingFixtures.decimal(20000), f.join().toString());
+                } catch (CompletionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException);
+                    busy++;
+                }
+            }
+            assertTrue(busy > 0);
+            assertEquals(busy, small.rejected());
+            // file access is disabled without root
+            assertTrue(failure(client.load("a.txt", 3)).getMessage().contains("disabled"));
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test
+    public void testClientThatStopsReadingDoesNotBlockWorkers() throws Exception {
+        NumberListServer small = NumberListServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                null, 1, 256, 256);
+        SocketChannel stalled = SocketChannel.open();
+        try {
+            stalled.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+            stalled.connect(small.address());
+            // 256 answers of ~50 KB each, far more than the socket buffers hold
+            byte[] request = new NumberListProtocol.Payload()
+                    .value(NumberLists.of(ScalingFixtures.decimal(100000), 3)).bytes();
+            for (int i = 0; i < 256; i++) {
+                NumberListProtocol.writeFrame(stalled, i, NumberListProtocol.SHIFT_LEFT, request);
+            }
+            try (NumberListClient client = NumberListClient.connect(small.address())) {
+                assertEquals("101", client.changeScale(NumberLists.of("5", 3), 2).get(10, TimeUnit.SECONDS).toString());
+            }
+        } finally {
+            stalled.close();
+            small.close();
+        }
+    }
+
+    @Test
+    public void testResponsesObeyFrameLimit() throws IOException {
+        // ~3.7 KB packed in base 3, ~7 KB as decimal string
+        NumberListImpl value = NumberLists.of(ScalingFixtures.decimal(7000), 3);
+        NumberListServer small = NumberListServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                null, 1, 16, 16, 4096);
+        try (NumberListClient client = NumberListClient.connect(small.address())) {
+            Throwable e = failure(client.toDecimalString(value));
+            assertTrue(String.valueOf(e), e instanceof IllegalStateException);
+            assertTrue(e.getMessage(), e.getMessage().contains("exceeds frame limit"));
+            // connection stays usable
+            assertEquals("101", client.changeScale(NumberLists.of("5", 3), 2).join().toString());
+        } finally {
+            small.close();
+        }
+
+        try (NumberListClient client = NumberListClient.connect(server.address(), 8, 4096)) {
+            Throwable e = failure(client.toDecimalString(value));
+            assertTrue(String.valueOf(e), e instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws IOException {
+        NumberListLoadGenerator.Report report = NumberListLoadGenerator.run(server.address(), 2, 8, 100, 50);
+        assertEquals(200, report.requests);
+        assertEquals(0, report.failed);
+        assertTrue(report.throughput() > 0);
+        assertTrue(report.latency(50) <= report.latency(99));
+        assertTrue(report.toString(), report.toString().contains("req/s"));
+    }
+
+    @Test
+    public void testClientFailsPendingOnClose() throws IOException {
+        NumberListClient client = NumberListClient.connect(server.address());
+        client.ping().join();
+        server.close();
+        Throwable e = failure(client.ping());
+        assertTrue(String.valueOf(e), e instanceof IOException);
+        client.close();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListSortTest {
+
+    private static NumberListImpl digits(String s, int base) {
+        NumberListImpl res = NumberLists.empty(base);
+        for (int i = 0; i < s.length(); i++) {
+            res.add((byte) Character.digit(s.charAt(i), base));
+        }
+        return res;
+    }
+
+    private static List<NumberListImpl> randomLists(int n, int maxDigits, int base, long seed) {
+        Random rnd = new Random(seed);
+        List<NumberListImpl> res = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            NumberListImpl l = NumberLists.empty(base);
+            int len = rnd.nextInt(maxDigits + 1);
+            // leading zeros and few distinct prefixes
+            for (int j = 0; j < len; j++) {
+                l.add((byte) (j < 2 ? rnd.nextInt(2) : rnd.nextInt(base)));
+            }
+            res.add(l);
+        }
+        return res;
+    }
+
+    private static void assertSorted(List<NumberListImpl> original, List<NumberListImpl> sorted) {
+        List<NumberListImpl> expected = new ArrayList<>(original);
+        // stable sort by value
+        Collections.sort(expected, (a, b) -> a.toBigInteger().compareTo(b.toBigInteger()));
+        assertEquals(expected.size(), sorted.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("position " + i, expected.get(i), sorted.get(i));
+        }
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertEquals(0, digits("0012", 3).compareTo(digits("12", 3)));
+        assertEquals(0, digits("", 3).compareTo(digits("000", 3)));
+        assertTrue(digits("21", 3).compareTo(digits("102", 3)) < 0);
+        assertTrue(digits("0102", 3).compareTo(digits("21", 3)) > 0);
+        assertTrue(digits("1201", 3).compareTo(digits("1210", 3)) < 0);
+        assertTrue(digits("1", 3).compareTo(digits("", 3)) > 0);
+
+        // different bases compare values
+        assertEquals(0, NumberLists.of("255", 16).compareTo(NumberLists.of("255", 8)));
+        assertTrue(NumberLists.of("256", 2).compareTo(NumberLists.of("255", 16)) > 0);
+        assertTrue(NumberLists.numericOrder().compare(NumberLists.of("9", 3), NumberLists.of("10", 3)) < 0);
+    }
+
+    @Test
+    public void testCompareToMatchesBigInteger() {
+        List<NumberListImpl> lists = randomLists(200, 12, 3, 1);
+        for (NumberListImpl a : lists) {
+            for (NumberListImpl b : lists) {
+                BigInteger x = a.toBigInteger();
+                BigInteger y = b.toBigInteger();
+                assertEquals(Integer.signum(x.compareTo(y)), Integer.signum(a.compareTo(b)));
+            }
+        }
+    }
+
+    @Test
+    public void testSortSequentialAndParallel() {
+        for (int base : new int[] {2, 3, 8, 16}) {
+            List<NumberListImpl> original = randomLists(3000, 40, base, base);
+            List<NumberListImpl> seq = new ArrayList<>(original);
+            NumberListSort.sort(seq, false);
+            assertSorted(original, seq);
+
+            List<NumberListImpl> par = new LinkedList<>(original);
+            NumberLists.sort(par);
+            assertSorted(original, par);
+        }
+    }
+
+    @Test
+    public void testSortForksLargeBuckets() {
+        // binary digits with common prefix: buckets above the parallel threshold
+        List<NumberListImpl> original = randomLists(40000, 24, 2, 7);
+        List<NumberListImpl> sorted = new ArrayList<>(original);
+        NumberLists.sort(sorted);
+        assertSorted(original, sorted);
+    }
+
+    @Test
+    public void testSortLongCommonPrefix() {
+        String prefix = ScalingFixtures.decimal(20000);
+        List<NumberListImpl> original = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            original.add(digits(prefix + (i % 7), 16));
+        }
+        List<NumberListImpl> sorted = new ArrayList<>(original);
+        NumberLists.sort(sorted);
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue(sorted.get(i - 1).compareTo(sorted.get(i)) <= 0);
+        }
+        assertSorted(original, sorted);
+    }
+
+    @Test
+    public void testSortMixedBases() {
+        List<NumberListImpl> original = new ArrayList<>();
+        original.add(NumberLists.of("300", 16));
+        original.add(NumberLists.of("7", 3));
+        original.add(NumberLists.of("100", 2));
+        original.add(NumberLists.of("7", 8));
+        List<NumberListImpl> sorted = new ArrayList<>(original);
+        NumberLists.sort(sorted);
+        assertSorted(original, sorted);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListStatsTest {
+
+    @Before
+    public void setUp() {
+        NumberListStats.setEnabled(true);
+        NumberListStats.reset();
+    }
+
+    @After
+    public void tearDown() {
+        NumberListStats.setEnabled(false);
+        NumberListStats.reset();
+    }
+
+    @Test
+    public void testTraversalsAndAllocations() {
+        NumberListImpl list = new NumberListImpl();
+        for (int i = 0; i < 100; i++) list.add((byte) 1);
+        assertEquals(100, NumberListStats.snapshot().nodeAllocations());
+
+        list.get(0);
+        list.get(10);
+        list.get(50);
+        list.get(99);
+
+        NumberListStats.Snapshot s = NumberListStats.snapshot();
+        assertEquals(4, s.nodeLookups());
+        assertEquals(0 + 10 + 49 + 0, s.nodeSteps());
+        assertEquals(4, s.traversalSteps().count());
+        assertEquals(2, s.traversalSteps().bucket(0));
+        assertEquals(49, s.traversalSteps().max());
+        assertTrue(s.traversalSteps().percentile(50) <= 15);
+    }
+
+    @Test
+    public void testConversionsAndOperations() {
+        NumberListImpl a = new NumberListImpl("123456789123456789123456789123456789");
+        // longer than one limb, so the operation goes through BigInteger conversions
+        NumberListImpl b = new NumberListImpl("12345678901234567890123");
+        a.additionalOperation(b);
+        a.changeScale();
+
+        NumberListStats.Snapshot s = NumberListStats.snapshot();
+        assertEquals(2, s.operations());
+        assertEquals(2, s.operationNanos().count());
+        assertTrue(s.conversions() >= 6);
+        assertTrue(s.conversionDigits() >= a.size() + b.size());
+
+        Map<String, Long> exported = s.toMap();
+        assertEquals(Long.valueOf(2), exported.get("operation.count"));
+        assertTrue(exported.containsKey("conversion.nanos.p99"));
+        assertTrue(s.toString().contains("node.lookups "));
+    }
+
+    @Test
+    public void testDisabledCollectsNothing() {
+        NumberListStats.setEnabled(false);
+        NumberListImpl list = new NumberListImpl("987654321");
+        list.get(3);
+        list.changeScale();
+
+        NumberListStats.Snapshot s = NumberListStats.snapshot();
+        assertEquals(0, s.nodeAllocations());
+        assertEquals(0, s.nodeLookups());
+        assertEquals(0, s.operations());
+        assertEquals(0, s.conversionNanos().percentile(99));
+    }
+
+    @Test
+    public void testRetainedBytes() {
+        NumberListImpl small = new NumberListImpl("1");
+        NumberListImpl big = new NumberListImpl("1000000000000");
+        long perDigit = NumberListStats.bytesPerDigit();
+        assertTrue(perDigit >= 16);
+        assertEquals((big.size() - small.size()) * perDigit,
+                NumberListStats.retainedBytes(big) - NumberListStats.retainedBytes(small));
+        assertTrue(NumberListStats.retainedBytes(new ConcurrentNumberList(big))
+                > NumberListStats.retainedBytes(big));
+        assertEquals(0, NumberListStats.retainedBytes(null));
+        // header, head, tail, codec, hash and live view references, size, modCount, base, frozen
+        assertTrue(NumberListStats.retainedBytes(NumberLists.empty(3)) >= 48);
+    }
+}
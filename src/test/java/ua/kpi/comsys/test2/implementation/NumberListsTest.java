@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NumberListsTest {
+
+    private static final String BIG = ScalingFixtures.decimal(3000);
+
+    @Test
+    public void testAllBasesMatchBigInteger() {
+        BigInteger big = new BigInteger(BIG);
+        for (int base = 2; base <= 16; base++) {
+            NumberListImpl list = NumberLists.of(BIG, base);
+            assertEquals("base " + base, big.toString(base).toUpperCase(), list.toString());
+            assertEquals("base " + base, BIG, list.toDecimalString());
+
+            assertEquals("0", NumberLists.of("000", base).toString());
+            assertTrue(NumberLists.of("12a", base).isEmpty());
+            assertTrue(NumberLists.empty(base).isEmpty());
+        }
+    }
+
+    @Test
+    public void testChangeScaleBetweenBases() {
+        NumberListImpl hex = NumberLists.of("255", 16);
+        assertEquals("FF", hex.toString());
+        assertEquals("11111111", hex.changeScale(2).toString());
+        assertEquals("100110", hex.changeScale(3).toString());
+        assertEquals("377", hex.changeScale(8).changeScale(8).toString());
+
+        NumberListImpl ternary = NumberLists.of(BIG, 3);
+        for (int base = 2; base <= 16; base++) {
+            assertEquals(NumberLists.of(BIG, base), ternary.changeScale(base));
+        }
+        assertEquals(ternary.changeScale(), new NumberListImpl(BIG).changeScale());
+    }
+
+    @Test
+    public void testOperationAcrossBases() {
+        NumberListImpl a = NumberLists.of("1000", 16);
+        NumberListImpl b = NumberLists.of("7", 2);
+        NumberListImpl r = a.additionalOperation(b);
+        BigInteger expected = NumberListImpl.applyOperation(BigInteger.valueOf(1000), BigInteger.valueOf(7));
+        assertEquals(expected.toString(16).toUpperCase(), r.toString());
+    }
+
+    @Test
+    public void testDigitsValidatedPerBase() {
+        NumberListImpl octal = NumberLists.of("8", 8);
+        octal.add((byte) 7);
+        try {
+            octal.add((byte) 8);
+            fail("8 is not an octal digit");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        NumberListImpl hex = NumberLists.empty(16);
+        hex.add((byte) 15);
+        assertEquals("F", hex.toString());
+    }
+
+    @Test
+    public void testUnsupportedBase() {
+        for (int base : new int[] {-1, 0, 1, 17, 36}) {
+            assertFalse(NumberLists.isSupportedBase(base));
+            try {
+                NumberLists.of("1", base);
+                fail("base " + base);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+            try {
+                new NumberListImpl("1").changeScale(base);
+                fail("base " + base);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RadixPowerCacheTest {
+
+    private long savedBudget;
+
+    @Before
+    public void setUp() {
+        savedBudget = RadixPowerCache.budget();
+        RadixPowerCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        RadixPowerCache.setBudget(savedBudget);
+        RadixPowerCache.clear();
+    }
+
+    @Test
+    public void testPowersAreCorrect() {
+        for (int base = 2; base <= 16; base++) {
+            for (int e : new int[] {0, 1, 7, 39, 64, 78, 156, 1000, 4096}) {
+                assertEquals(base + "^" + e, BigInteger.valueOf(base).pow(e), RadixPowerCache.power(base, e));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedConversionsHit() {
+        String decimal = ScalingFixtures.decimal(20000);
+        new NumberListImpl(decimal).changeScale();
+        long misses = RadixPowerCache.MISSES.sum();
+        long hits = RadixPowerCache.HITS.sum();
+
+        NumberListImpl again = new NumberListImpl(decimal);
+        assertEquals(decimal, again.changeScale().toDecimalString());
+        assertEquals("second run computes no powers", misses, RadixPowerCache.MISSES.sum());
+        assertTrue(RadixPowerCache.HITS.sum() > hits);
+
+        BigInteger p = RadixPowerCache.power(3, 39 << 4);
+        assertSame(p, RadixPowerCache.power(3, 39 << 4));
+
+        NumberListStats.Snapshot s = NumberListStats.snapshot();
+        assertTrue(s.powerCacheHits() > 0);
+        assertEquals(RadixPowerCache.bytes(), s.powerCacheBytes());
+    }
+
+    @Test
+    public void testBudgetEvictsLeastRecentlyUsed() {
+        // odd exponents: computed directly, no half powers cached
+        RadixPowerCache.setBudget(20000);
+        BigInteger a = RadixPowerCache.power(7, 10001);  // ~3.5 KB
+        RadixPowerCache.power(11, 10001);                // ~4.3 KB
+        assertSame(a, RadixPowerCache.power(7, 10001)); // 7^10001 is now most recent
+        long evictions = RadixPowerCache.EVICTIONS.sum();
+
+        RadixPowerCache.power(13, 30001);                // ~13.9 KB, pushes out 11^10001
+        assertEquals(evictions + 1, RadixPowerCache.EVICTIONS.sum());
+        assertTrue(RadixPowerCache.bytes() <= 20000);
+        assertSame(a, RadixPowerCache.power(7, 10001));
+
+        long misses = RadixPowerCache.MISSES.sum();
+        RadixPowerCache.power(5, 200001);                // larger than budget: returned, not cached
+        RadixPowerCache.power(5, 200001);
+        assertEquals(misses + 2, RadixPowerCache.MISSES.sum());
+        assertEquals(2, RadixPowerCache.entries());
+
+        RadixPowerCache.setBudget(0);
+        assertEquals(0, RadixPowerCache.entries());
+    }
+}
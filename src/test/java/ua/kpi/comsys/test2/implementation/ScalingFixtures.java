@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Deterministic large-number fixtures for scalability tests.
+ *
+ * Fixture of n digits is a decimal number without leading zero generated from
+ * a seed derived from n, so every run (and every machine) sees the same input.
+ * Files are generated on first use into java.io.tmpdir and reused afterwards.
+ */
+final class ScalingFixtures {
+
+    /**
+     * Largest fixture size used by default, override with -Dnumberlist.scaling.maxDigits=10000000.
+     */
+    static final int DEFAULT_MAX_DIGITS = 100_000;
+
+    private ScalingFixtures() {
+    }
+
+    static int maxDigits() {
+        return Integer.getInteger("numberlist.scaling.maxDigits", DEFAULT_MAX_DIGITS);
+    }
+
+    /**
+     * Returns decimal number with exactly given count of digits.
+     */
+    static String decimal(int digits) {
+        return decimal(digits, digits);
+    }
+
+    static String decimal(int digits, long seed) {
+        Random rnd = new Random(seed * 0x9E3779B97F4A7C15L);
+        char[] chars = new char[digits];
+        chars[0] = (char) ('1' + rnd.nextInt(9));
+        for (int i = 1; i < digits; i++) {
+            chars[i] = (char) ('0' + rnd.nextInt(10));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns path of fixture file holding decimal(digits), generating it if needed.
+     */
+    static Path file(int digits) throws IOException {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "numberlist-fixtures");
+        Files.createDirectories(dir);
+        Path f = dir.resolve("decimal-" + digits + ".txt");
+        if (Files.isRegularFile(f) && Files.size(f) == digits) return f;
+
+        Path tmp = Files.createTempFile(dir, "decimal-" + digits, ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII)) {
+            w.write(decimal(digits));
+        }
+        Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING);
+        return f;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scalability regression suite: conversions and operations on generated
+ * fixtures of 10^3 .. maxDigits digits are cross-checked against an
+ * independent oracle and timed at two sizes to catch quadratic blow-ups.
+ */
+public class ScalingTest {
+
+    // BigInteger(String) is itself quadratic, above this size results are checked by residues only
+    private static final int ORACLE_LIMIT = 200_000;
+
+    // Timed sizes are maxDigits / SPREAD and maxDigits
+    private static final int SPREAD = 16;
+
+    // SPREAD times more digits may cost at most this many times more (quadratic gives 256)
+    private static final double MAX_GROWTH = 150;
+
+    private static final long[] PRIMES = {1_000_000_007L, 998_244_353L, 2_147_483_647L};
+
+    private static long[] residues(CharSequence s, int base) {
+        long[] res = new long[PRIMES.length];
+        for (int i = 0; i < s.length(); i++) {
+            int d = Character.digit(s.charAt(i), base);
+            for (int j = 0; j < PRIMES.length; j++) {
+                res[j] = (res[j] * base + d) % PRIMES[j];
+            }
+        }
+        return res;
+    }
+
+    private static void assertSameNumber(String msg, String decimal, NumberListImpl list) {
+        long[] expected = residues(decimal, 10);
+        long[] actual = residues(list.toString(), list.base());
+        for (int j = 0; j < PRIMES.length; j++) {
+            assertEquals(msg + " mod " + PRIMES[j], expected[j], actual[j]);
+        }
+    }
+
+    @Test
+    public void testFixturesAreDeterministic() throws IOException {
+        Path f = ScalingFixtures.file(1000);
+        String content = new String(Files.readAllBytes(f), StandardCharsets.US_ASCII);
+        assertEquals(1000, content.length());
+        assertEquals(ScalingFixtures.decimal(1000), content);
+        assertTrue(content.charAt(0) != '0');
+    }
+
+    @Test
+    public void testCrossCheck() throws IOException {
+        for (int n = 1000; n <= ScalingFixtures.maxDigits(); n *= 10) {
+            crossCheck(n);
+        }
+    }
+
+    private void crossCheck(int n) throws IOException {
+        String a = ScalingFixtures.decimal(n);
+        String b = ScalingFixtures.decimal(n / 2 + 1, -n);
+        String at = n + " digits";
+
+        NumberListImpl list = new NumberListImpl(ScalingFixtures.file(n).toFile());
+        assertSameNumber("parse " + at, a, list);
+        assertEquals("toDecimalString " + at, a, list.toDecimalString());
+
+        NumberListImpl scaled = list.changeScale();
+        assertSameNumber("changeScale " + at, a, scaled);
+        assertEquals("changeScale round trip " + at, a, scaled.toDecimalString());
+
+        NumberListImpl other = new NumberListImpl(b);
+        NumberListImpl result = list.additionalOperation(other);
+        assertEquals("operands unchanged " + at, b, other.toDecimalString());
+
+        File out = File.createTempFile("scaling", ".txt");
+        try {
+            list.saveList(out);
+            assertEquals("saveList " + at, a, new String(Files.readAllBytes(out.toPath()), StandardCharsets.US_ASCII));
+        } finally {
+            out.delete();
+        }
+
+        if (n <= ORACLE_LIMIT) {
+            BigInteger x = new BigInteger(a);
+            BigInteger y = new BigInteger(b);
+            assertEquals("list digits " + at, x.toString(list.base()), list.toString());
+            assertEquals("scaled digits " + at, x.toString(scaled.base()).toUpperCase(), scaled.toString());
+            BigInteger r = NumberListImpl.applyOperation(x, y);
+            assertEquals("additionalOperation " + at, r.toString(result.base()).toUpperCase(), result.toString());
+            assertEquals("get " + at, Character.digit(list.toString().charAt(list.size() / 2), list.base()),
+                    (int) list.get(list.size() / 2));
+        }
+    }
+
+    //  Timing
+
+    private interface Op {
+        Object run(int digits) throws IOException;
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // CPU time of the calling thread excludes GC and other threads, wall time is the fallback
+    private static long now() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static long bestNanos(Op op, int digits) throws IOException {
+        long best = Long.MAX_VALUE;
+        System.gc();
+        for (int i = 0; i < 5; i++) {
+            long t0 = now();
+            op.run(digits);
+            best = Math.min(best, now() - t0);
+        }
+        return best;
+    }
+
+    private static void assertSubquadratic(String name, Op op) throws IOException {
+        int large = ScalingFixtures.maxDigits();
+        int small = large / SPREAD;
+        for (int i = 0; i < 5; i++) op.run(small); // warm-up, small sizes are the most JIT-sensitive
+        long ts = Math.max(bestNanos(op, small), 1);
+        long tl = bestNanos(op, large);
+        double growth = (double) tl / ts;
+        assertTrue(name + ": " + small + " digits took " + ts / 1000 + " us, " + large + " digits took "
+                + tl / 1000 + " us (x" + Math.round(growth) + ")", growth < MAX_GROWTH);
+    }
+
+    private static NumberListImpl fixture(int digits) throws IOException {
+        return new NumberListImpl(ScalingFixtures.file(digits).toFile());
+    }
+
+    @Test
+    public void testParseScales() throws IOException {
+        assertSubquadratic("parse", new Op() {
+            public Object run(int digits) throws IOException {
+                return fixture(digits);
+            }
+        });
+    }
+
+    @Test
+    public void testChangeScaleScales() throws IOException {
+        final NumberListImpl[] lists = {fixture(ScalingFixtures.maxDigits() / SPREAD), fixture(ScalingFixtures.maxDigits())};
+        assertSubquadratic("changeScale", new Op() {
+            public Object run(int digits) {
+                return lists[digits == ScalingFixtures.maxDigits() ? 1 : 0].changeScale();
+            }
+        });
+    }
+
+    @Test
+    public void testAdditionalOperationScales() throws IOException {
+        final int max = ScalingFixtures.maxDigits();
+        final NumberListImpl[] lists = {fixture(max / SPREAD), fixture(max)};
+        final NumberListImpl[] args = {new NumberListImpl(ScalingFixtures.decimal(max / SPREAD / 2, 7)),
+                new NumberListImpl(ScalingFixtures.decimal(max / 2, 7))};
+        assertSubquadratic("additionalOperation", new Op() {
+            public Object run(int digits) {
+                int i = digits == max ? 1 : 0;
+                return lists[i].additionalOperation(args[i]);
+            }
+        });
+    }
+
+    @Test
+    public void testSaveScales() throws IOException {
+        final int max = ScalingFixtures.maxDigits();
+        final NumberListImpl[] lists = {fixture(max / SPREAD), fixture(max)};
+        final File out = File.createTempFile("scaling", ".txt");
+        try {
+            assertSubquadratic("saveList", new Op() {
+                public Object run(int digits) {
+                    lists[digits == max ? 1 : 0].saveList(out);
+                    return out;
+                }
+            });
+        } finally {
+            out.delete();
+        }
+    }
+
+    @Test
+    public void testIndexedAccessScales() throws IOException {
+        final int max = ScalingFixtures.maxDigits();
+        final NumberListImpl[] lists = {fixture(max / SPREAD), fixture(max)};
+        assertSubquadratic("get", new Op() {
+            public Object run(int digits) {
+                NumberListImpl l = lists[digits == max ? 1 : 0];
+                int sum = 0;
+                for (int i = 0; i < 64; i++) sum += l.get((int) ((long) l.size() * i / 64));
+                return sum;
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingSaveTest {
+
+    File dir;
+    File f;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("numberlist").toFile();
+        f = new File(dir, "number.txt");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File x : files) x.delete();
+        }
+        dir.delete();
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        // values around leaf / split sizes exercise zero padding of low halves
+        BigInteger[] values = {
+                BigInteger.ZERO,
+                BigInteger.TEN.pow(256),
+                BigInteger.TEN.pow(256).subtract(BigInteger.ONE),
+                BigInteger.TEN.pow(1024),
+                BigInteger.TEN.pow(1024).add(BigInteger.ONE),
+                BigInteger.TEN.pow(3000).add(BigInteger.TEN.pow(1500)),
+        };
+        for (BigInteger v : values) {
+            new NumberListImpl(v.toString()).saveList(f);
+            assertEquals(v.toString(), read());
+        }
+    }
+
+    @Test
+    public void testRandomLargeNumber() throws IOException {
+        Random rnd = new Random(7);
+        StringBuilder sb = new StringBuilder("9");
+        for (int i = 1; i < 5000; i++) sb.append(rnd.nextInt(10));
+        String value = sb.toString();
+
+        NumberListImpl list = new NumberListImpl(value);
+        list.saveList(f);
+        assertEquals(value, read());
+        assertEquals(list, new NumberListImpl(f));
+    }
+
+    @Test
+    public void testOverwriteWithShorterNumber() throws IOException {
+        new NumberListImpl("123456789").saveList(f);
+        new NumberListImpl("14").saveList(f);
+        assertEquals("14", read());
+    }
+
+    @Test
+    public void testAtomicReplace() throws IOException {
+        new NumberListImpl("123456789").saveList(f, true);
+        assertEquals("123456789", read());
+
+        new NumberListImpl("227").saveList(f, true);
+        assertEquals("227", read());
+        assertEquals("Temporary file left behind", 1, dir.listFiles().length);
+    }
+
+    @Test
+    public void testAtomicKeepsPermissions() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        File plain = new File(dir, "plain.txt");
+        new NumberListImpl("227").saveList(plain);
+        new NumberListImpl("227").saveList(f, true);
+        // new file gets the default permissions, not owner-only ones of a temp file
+        assertEquals(Files.getPosixFilePermissions(plain.toPath()), Files.getPosixFilePermissions(f.toPath()));
+
+        Set<PosixFilePermission> perms = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(f.toPath(), perms);
+        new NumberListImpl("123").saveList(f, true);
+        assertEquals("123", read());
+        assertEquals(perms, Files.getPosixFilePermissions(f.toPath()));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WriteDigitsTest {
+
+    private static NumberListImpl bigList() {
+        Random rnd = new Random(9);
+        StringBuilder sb = new StringBuilder("5");
+        for (int i = 0; i < 6000; i++) sb.append(rnd.nextInt(10));
+        return new NumberListImpl(sb.toString());
+    }
+
+    @Test
+    public void testAppendableMatchesToString() throws IOException {
+        NumberListImpl list = bigList();
+
+        StringBuilder sb = new StringBuilder();
+        list.writeDigits(sb);
+        assertEquals(list.toString(), sb.toString());
+
+        StringWriter w = new StringWriter();
+        list.writeDigits(w);
+        assertEquals(list.toString(), w.toString());
+    }
+
+    @Test
+    public void testChannelMatchesToString() throws IOException {
+        NumberListImpl list = bigList();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        list.writeDigits(Channels.newChannel(bytes));
+        assertEquals(list.toString(), new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testOtherBaseAndEmpty() throws IOException {
+        NumberListImpl octal = new NumberListImpl("1212144468782345613").changeScale();
+        StringBuilder sb = new StringBuilder();
+        octal.writeDigits(sb);
+        assertEquals(octal.toString(), sb.toString());
+
+        sb.setLength(0);
+        new NumberListImpl().writeDigits(sb);
+        assertEquals("", sb.toString());
+    }
+}